@@ -37,6 +37,7 @@ import org.cytoscape.dyn.internal.layout.model.DynLayoutManagerImpl;
 import org.cytoscape.dyn.internal.layout.task.CleanDynLayout;
 import org.cytoscape.dyn.internal.layout.task.ForceDirectedDynLayout;
 import org.cytoscape.dyn.internal.layout.task.KKDynLayout;
+import org.cytoscape.dyn.internal.layout.task.StressDynLayout;
 import org.cytoscape.dyn.internal.model.DynNetworkFactory;
 import org.cytoscape.dyn.internal.model.DynNetworkFactoryImpl;
 import org.cytoscape.dyn.internal.model.DynNetworkManager;
@@ -160,6 +161,10 @@ public class CyActivator<T, C> extends AbstractCyActivator {
 		CyLayoutAlgorithm dynPerfuseLayout = new ForceDirectedDynLayout<T, C>(
 				"Dynamic Layouts", "Prefuse DynLayout", undo, dynCytoPanel,
 				dynLayoutFactory, dynNetViewManager, dynLayoutManager);
+		CyLayoutAlgorithm dynStressLayout = new StressDynLayout<T, C>(
+				"Dynamic Layouts", "Stress Majorization DynLayout", undo,
+				dynCytoPanel, dynLayoutFactory, dynNetViewManager,
+				dynLayoutManager);
 		CyLayoutAlgorithm dynClearLayout = new CleanDynLayout<T, C>(
 				"Dynamic Layouts", "Remove DynLayout", undo, dynLayoutFactory);
 		// CyLayoutAlgorithm dynClearVizMap = new
@@ -229,6 +234,8 @@ public class CyActivator<T, C> extends AbstractCyActivator {
 				myLayoutProps);
 		registerService(context, dynPerfuseLayout, CyLayoutAlgorithm.class,
 				myLayoutProps);
+		registerService(context, dynStressLayout, CyLayoutAlgorithm.class,
+				myLayoutProps);
 		registerService(context, dynClearLayout, CyLayoutAlgorithm.class,
 				myLayoutProps);
 		// registerService(context,dynClearVizMap,CyLayoutAlgorithm.class,
@@ -0,0 +1,195 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.cytoscape.dyn.internal.layout.standard.distance.SnapshotCSRDistance;
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+
+/**
+ * <code>AllPairsDistance</code> computes the distances between all pairs of
+ * nodes of a time window, with one BFS (unweighted) or Dijkstra (weighted) per
+ * source node running in parallel. The distance rows are kept in a buffer that
+ * is reused by the following windows, so closeness, eccentricity, radiality
+ * and centroid of a window can all be read from one computation.
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public class AllPairsDistance<T> {
+
+	private final ExecutorService executor;
+	private final int parallelism;
+	private SnapshotCSR<T> csr;
+	private double[][] rows = new double[0][];
+
+	/**
+	 * @param executor
+	 *            executor for the sources, or null to run in the calling
+	 *            thread
+	 * @param parallelism
+	 *            number of threads of the executor
+	 */
+	public AllPairsDistance(ExecutorService executor, int parallelism) {
+		this.executor = executor;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Compute the distance rows of all nodes of the window.
+	 * 
+	 * @param csr
+	 */
+	public void compute(final SnapshotCSR<T> csr) {
+		this.csr = csr;
+		final int n = csr.getNodeCount();
+		if (rows.length < n) {
+			double[][] newRows = new double[n][];
+			System.arraycopy(rows, 0, newRows, 0, rows.length);
+			rows = newRows;
+		}
+		for (int i = 0; i < n; i++)
+			if (rows[i] == null || rows[i].length < n)
+				rows[i] = new double[n];
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int t = 0; t < parallelism; t++) {
+			final int first = t;
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					SnapshotCSRDistance<T> search = new SnapshotCSRDistance<T>(
+							csr);
+					int[] hops = csr.isWeighted() ? null : new int[n];
+					for (int s = first; s < n; s += parallelism) {
+						double[] row = rows[s];
+						if (csr.isWeighted())
+							search.dijkstra(s, row);
+						else {
+							search.bfs(s, hops);
+							for (int i = 0; i < n; i++)
+								row[i] = hops[i] < 0 ? Double.POSITIVE_INFINITY
+										: hops[i];
+						}
+					}
+					return null;
+				}
+			});
+		}
+		runAll(tasks);
+	}
+
+	/**
+	 * @return number of nodes of the current window
+	 */
+	public int getNodeCount() {
+		return csr == null ? 0 : csr.getNodeCount();
+	}
+
+	/**
+	 * Get the distances from the source node index to every node index of the
+	 * current window, with positive infinity for unreachable nodes. Only the
+	 * first n entries are valid and the row must not be modified.
+	 * 
+	 * @param source
+	 * @return distance row
+	 */
+	public double[] getRow(int source) {
+		return rows[source];
+	}
+
+	/**
+	 * Compute the centroid value of every node: the minimum over all other
+	 * nodes v2 of the number of nodes closer to v1 than to v2 minus the number
+	 * of nodes closer to v2, and at most 0. The count for (v2,v1) is the
+	 * negated count for (v1,v2), so each pair is compared once; every thread
+	 * keeps its own minima, which are merged at the end.
+	 * 
+	 * @return centroid values by node index
+	 */
+	public int[] getCentroid() {
+		final int n = getNodeCount();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		final int[][] partial = new int[parallelism][];
+		for (int t = 0; t < parallelism; t++) {
+			final int first = t;
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					int[] centroid = new int[n];
+					// interleaved rows balance the triangular loop
+					for (int v1 = first; v1 < n; v1 += parallelism) {
+						double[] row1 = rows[v1];
+						for (int v2 = v1 + 1; v2 < n; v2++) {
+							double[] row2 = rows[v2];
+							int count = 0;
+							for (int v3 = 0; v3 < n; v3++) {
+								if (v3 == v1 || v3 == v2)
+									continue;
+								if (row1[v3] < row2[v3])
+									count++;
+								else if (row1[v3] > row2[v3])
+									count--;
+							}
+							if (count < centroid[v1])
+								centroid[v1] = count;
+							if (-count < centroid[v2])
+								centroid[v2] = -count;
+						}
+					}
+					partial[first] = centroid;
+					return null;
+				}
+			});
+		}
+		runAll(tasks);
+
+		int[] centroid = new int[n];
+		for (int[] values : partial)
+			for (int i = 0; i < n; i++)
+				centroid[i] = Math.min(centroid[i], values[i]);
+		return centroid;
+	}
+
+	private void runAll(List<Callable<Object>> tasks) {
+		if (executor == null || parallelism == 1) {
+			for (Callable<Object> task : tasks)
+				try {
+					task.call();
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			return;
+		}
+		try {
+			for (Future<Object> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+
+/**
+ * <code>BrandesBetweenness</code> computes Betweenness and Stress on a
+ * {@link SnapshotCSR} with Brandes' algorithm. The sources are split into one
+ * contiguous range per thread; each worker reuses a single workspace and adds
+ * the dependencies of its sources to its own accumulators, which are summed in
+ * worker order at the end. For a given number of threads the results are
+ * reproducible; they only differ from a sequential run by the order of the
+ * floating point additions. An approximation can be computed from a uniform
+ * sample of source nodes, scaling the sums by n/k (Brandes and Pich, 2007).
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public class BrandesBetweenness<T> {
+
+	// minimum number of sources per worker
+	private static final int MIN_SOURCES = 32;
+
+	private final SnapshotCSR<T> csr;
+	private final ExecutorService executor;
+	private final int parallelism;
+	private double[] betweenness;
+	private double[] stress;
+
+	/**
+	 * @param csr
+	 * @param executor
+	 *            executor for the source ranges, or null to run in the
+	 *            calling thread
+	 * @param parallelism
+	 *            number of threads of the executor
+	 */
+	public BrandesBetweenness(SnapshotCSR<T> csr, ExecutorService executor,
+			int parallelism) {
+		this.csr = csr;
+		this.executor = executor;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Accumulate the dependencies of all nodes as sources.
+	 */
+	public void compute() {
+		int n = csr.getNodeCount();
+		int[] sources = new int[n];
+		for (int i = 0; i < n; i++)
+			sources[i] = i;
+		compute(sources, 1.0);
+	}
+
+	/**
+	 * Estimate the values from the dependencies of a uniform sample of source
+	 * nodes, drawn without replacement. If the sample covers all nodes the
+	 * result is exact.
+	 * 
+	 * @param samples
+	 *            number of sampled sources
+	 * @param random
+	 */
+	public void compute(int samples, Random random) {
+		int n = csr.getNodeCount();
+		if (samples >= n) {
+			compute();
+			return;
+		}
+		int[] nodes = new int[n];
+		for (int i = 0; i < n; i++)
+			nodes[i] = i;
+		for (int i = 0; i < samples; i++) {
+			int j = i + random.nextInt(n - i);
+			int tmp = nodes[i];
+			nodes[i] = nodes[j];
+			nodes[j] = tmp;
+		}
+		int[] sources = Arrays.copyOf(nodes, samples);
+		Arrays.sort(sources);
+		compute(sources, (double) n / samples);
+	}
+
+	/**
+	 * Get the number of sources to sample so that, with probability at least
+	 * 1-delta, every estimate is within epsilon of the exact value normalized
+	 * by n(n-2) (Hoeffding bound with a union bound over the nodes). A positive
+	 * sample count takes precedence over the error bound.
+	 * 
+	 * @param n
+	 *            number of nodes
+	 * @param sampleCount
+	 *            fixed number of samples, or 0 to use the error bound
+	 * @param epsilon
+	 * @param delta
+	 * @return number of sources to sample, at most n
+	 */
+	public static int getSampleCount(int n, int sampleCount, double epsilon,
+			double delta) {
+		if (sampleCount > 0)
+			return Math.min(n, sampleCount);
+		if (epsilon <= 0 || delta <= 0 || delta >= 1)
+			throw new IllegalArgumentException(
+					"Error bound requires epsilon > 0 and 0 < delta < 1");
+		double k = Math.ceil(Math.log(2.0 * Math.max(1, n) / delta)
+				/ (2 * epsilon * epsilon));
+		return (int) Math.min(n, k);
+	}
+
+	/**
+	 * Accumulate the dependencies of the given sources and multiply the totals
+	 * by scale.
+	 * 
+	 * @param sources
+	 * @param scale
+	 */
+	public void compute(int[] sources, double scale) {
+		int n = csr.getNodeCount();
+		int workers = executor == null ? 1 : Math.max(1,
+				Math.min(parallelism, sources.length / MIN_SOURCES));
+
+		List<Workspace> workspaces = new ArrayList<Workspace>(workers);
+		for (int w = 0; w < workers; w++)
+			workspaces.add(new Workspace(sources,
+					(int) ((long) w * sources.length / workers),
+					(int) ((long) (w + 1) * sources.length / workers)));
+
+		if (workers == 1)
+			workspaces.get(0).call();
+		else {
+			List<Future<Object>> pending = new ArrayList<Future<Object>>(workers);
+			try {
+				for (Workspace workspace : workspaces)
+					pending.add(executor.submit(workspace));
+				for (Future<Object> future : pending)
+					future.get();
+			} catch (InterruptedException e) {
+				cancel(pending);
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				cancel(pending);
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		betweenness = workspaces.get(0).betweenness;
+		stress = workspaces.get(0).stress;
+		for (int w = 1; w < workers; w++) {
+			Workspace workspace = workspaces.get(w);
+			for (int i = 0; i < n; i++) {
+				betweenness[i] += workspace.betweenness[i];
+				stress[i] += workspace.stress[i];
+			}
+		}
+
+		if (scale != 1.0)
+			for (int i = 0; i < n; i++) {
+				betweenness[i] *= scale;
+				stress[i] *= scale;
+			}
+	}
+
+	/**
+	 * @return betweenness values by node index
+	 */
+	public double[] getBetweenness() {
+		return betweenness;
+	}
+
+	/**
+	 * @return stress values by node index
+	 */
+	public double[] getStress() {
+		return stress;
+	}
+
+	private void cancel(List<Future<Object>> pending) {
+		for (Future<Object> future : pending)
+			future.cancel(true);
+	}
+
+	/**
+	 * The sources of one worker, with the primitive arrays for the
+	 * single-source runs and the accumulated values. Predecessors are kept in
+	 * linked lists threaded through the predNode/predNext arrays.
+	 */
+	private final class Workspace implements Callable<Object> {
+
+		private final int[] sources;
+		private final int from;
+		private final int to;
+		private final double[] betweenness;
+		private final double[] stress;
+		private final int[] dist;
+		private final int[] queue;
+		private final double[] sigma;
+		private final double[] delta;
+		private final double[] delta1;
+		private final int[] predHead;
+		private final int[] predNext;
+		private final int[] predNode;
+
+		private Workspace(int[] sources, int from, int to) {
+			int n = csr.getNodeCount();
+			int arcs = csr.getArcCount();
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+			betweenness = new double[n];
+			stress = new double[n];
+			dist = new int[n];
+			queue = new int[n];
+			sigma = new double[n];
+			delta = new double[n];
+			delta1 = new double[n];
+			predHead = new int[n];
+			predNext = new int[arcs];
+			predNode = new int[arcs];
+			Arrays.fill(dist, -1);
+			Arrays.fill(predHead, -1);
+		}
+
+		public Object call() {
+			for (int i = from; i < to; i++)
+				run(sources[i]);
+			return null;
+		}
+
+		private void run(int source) {
+			int[] offsets = csr.getOffsets();
+			int[] targets = csr.getTargets();
+
+			int preds = 0;
+			int head = 0, tail = 0;
+			queue[tail++] = source;
+			dist[source] = 0;
+			sigma[source] = 1.0;
+			while (head < tail) {
+				int v = queue[head++];
+				for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+					int w = targets[k];
+					if (dist[w] < 0) {
+						queue[tail++] = w;
+						dist[w] = dist[v] + 1;
+					}
+					if (dist[w] == dist[v] + 1) {
+						sigma[w] = sigma[w] + sigma[v];
+						predNode[preds] = v;
+						predNext[preds] = predHead[w];
+						predHead[w] = preds++;
+					}
+				}
+			}
+
+			// the queue holds the nodes in order of non-decreasing distance
+			for (int i = tail - 1; i >= 0; i--) {
+				int w = queue[i];
+				for (int p = predHead[w]; p >= 0; p = predNext[p]) {
+					int v = predNode[p];
+					delta[v] = delta[v] + (double) (sigma[v] / sigma[w])
+							* (1 + delta[w]);
+					delta1[v] = delta1[v] + (double) (sigma[v])
+							* (1 + delta1[w]);
+				}
+				if (w != source) {
+					betweenness[w] += delta[w];
+					stress[w] += delta1[w];
+				}
+			}
+
+			// only the reached nodes need to be reset for the next source
+			for (int i = 0; i < tail; i++) {
+				int w = queue[i];
+				dist[w] = -1;
+				sigma[w] = 0.0;
+				delta[w] = 0.0;
+				delta1[w] = 0.0;
+				predHead[w] = -1;
+			}
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.cytoscape.dyn.internal.model.DynNetwork;
+import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+/**
+ * <code>DegreeSweep</code> computes the degree, in-degree and out-degree time
+ * series of all nodes with a sweep over the event times. Timeline cursors
+ * return the node and edge intervals that start or end at each event, the
+ * per-node counters are updated for those only, and a new value interval is
+ * emitted only when the value of a node changes or the node appears or
+ * disappears. The cursors do not set the on/off flags of the intervals, so
+ * the sweep does not interfere with the view.
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public class DegreeSweep<T> {
+
+	public static final int DEGREE = 0;
+	public static final int IN_DEGREE = 1;
+	public static final int OUT_DEGREE = 2;
+
+	private final DynNetwork<T> network;
+	private final HashMap<CyNode, Integer> nodeIndex;
+	private final HashMap<CyEdge, Integer> edgeCount;
+	private CyNode[] nodes;
+	private int[] nodeCount;
+	private int[] inDegree;
+	private int[] outDegree;
+	private boolean[][] runOpen;
+	private double[][] runStart;
+	private double[][] runValue;
+	private int size;
+	private int[] dirty;
+	private int[] dirtyStamp;
+	private int dirtySize;
+	private NodeSeries[] series;
+
+	/**
+	 * @param network
+	 */
+	public DegreeSweep(DynNetwork<T> network) {
+		this.network = network;
+		this.nodeIndex = new HashMap<CyNode, Integer>();
+		this.edgeCount = new HashMap<CyEdge, Integer>();
+		this.nodes = new CyNode[16];
+		this.nodeCount = new int[16];
+		this.inDegree = new int[16];
+		this.outDegree = new int[16];
+		this.runOpen = new boolean[3][16];
+		this.runStart = new double[3][16];
+		this.runValue = new double[3][16];
+		this.dirty = new int[16];
+		this.dirtyStamp = new int[16];
+		this.series = new NodeSeries[] { new NodeSeries(), new NodeSeries(),
+				new NodeSeries() };
+	}
+
+	/**
+	 * Sweep over the sorted event times. The values in the window between two
+	 * consecutive events are the values at the first event.
+	 * 
+	 * @param eventTimes
+	 */
+	@SuppressWarnings("unchecked")
+	public void run(List<Double> eventTimes) {
+		if (eventTimes.isEmpty())
+			return;
+		TimelineCursor<T> nodeCursor = network.getNodeTimelineCursor(false);
+		TimelineCursor<T> edgeCursor = network.getEdgeTimelineCursor(false);
+		DynIntervalDouble point = new DynIntervalDouble(0.0, 0.0);
+
+		Arrays.fill(dirtyStamp, -1);
+		for (int k = 0; k < eventTimes.size() - 1; k++) {
+			double time = eventTimes.get(k);
+			point.setStart(time);
+			point.setEnd(time);
+			dirtySize = 0;
+
+			for (DynInterval<T> i : nodeCursor
+					.searchChanged((DynInterval<T>) point)) {
+				CyNode node = network.getNode(i);
+				if (node != null) {
+					int index = getIndex(node);
+					nodeCount[index] += nodeCursor.contains(i) ? 1 : -1;
+					markDirty(index, k);
+				}
+			}
+
+			for (DynInterval<T> i : edgeCursor
+					.searchChanged((DynInterval<T>) point)) {
+				CyEdge edge = network.getEdge(i);
+				if (edge != null)
+					updateEdge(edge, edgeCursor.contains(i) ? 1 : -1, k);
+			}
+
+			for (int d = 0; d < dirtySize; d++)
+				updateRuns(dirty[d], time);
+		}
+
+		double endTime = eventTimes.get(eventTimes.size() - 1);
+		for (int index = 0; index < size; index++)
+			for (int kind = 0; kind < 3; kind++)
+				if (runOpen[kind][index])
+					closeRun(kind, index, endTime);
+	}
+
+	/**
+	 * @param kind
+	 *            DEGREE, IN_DEGREE or OUT_DEGREE
+	 * @return value intervals of the given kind
+	 */
+	public NodeSeries getSeries(int kind) {
+		return series[kind];
+	}
+
+	private void updateEdge(CyEdge edge, int delta, int stamp) {
+		Integer count = edgeCount.get(edge);
+		int before = count == null ? 0 : count;
+		int after = before + delta;
+		if (after == 0)
+			edgeCount.remove(edge);
+		else
+			edgeCount.put(edge, after);
+
+		// parallel intervals of the same edge count once
+		int change = (before == 0 && after > 0) ? 1
+				: (before > 0 && after == 0) ? -1 : 0;
+		if (change != 0) {
+			int source = getIndex(edge.getSource());
+			int target = getIndex(edge.getTarget());
+			outDegree[source] += change;
+			inDegree[target] += change;
+			markDirty(source, stamp);
+			markDirty(target, stamp);
+		}
+	}
+
+	private void updateRuns(int index, double time) {
+		boolean visible = nodeCount[index] > 0;
+		for (int kind = 0; kind < 3; kind++) {
+			double value = getValue(kind, index);
+			if (runOpen[kind][index]
+					&& (!visible || runValue[kind][index] != value))
+				closeRun(kind, index, time);
+			if (visible && !runOpen[kind][index]) {
+				runOpen[kind][index] = true;
+				runStart[kind][index] = time;
+				runValue[kind][index] = value;
+			}
+		}
+	}
+
+	private void closeRun(int kind, int index, double time) {
+		series[kind].add(nodes[index].getSUID(), runValue[kind][index],
+				runStart[kind][index], time);
+		runOpen[kind][index] = false;
+	}
+
+	private double getValue(int kind, int index) {
+		switch (kind) {
+		case IN_DEGREE:
+			return inDegree[index];
+		case OUT_DEGREE:
+			return outDegree[index];
+		default:
+			return inDegree[index] + outDegree[index];
+		}
+	}
+
+	private void markDirty(int index, int stamp) {
+		if (dirtyStamp[index] != stamp) {
+			dirtyStamp[index] = stamp;
+			dirty[dirtySize++] = index;
+		}
+	}
+
+	private int getIndex(CyNode node) {
+		Integer index = nodeIndex.get(node);
+		if (index != null)
+			return index;
+		if (size == nodes.length) {
+			int capacity = 2 * size;
+			nodes = Arrays.copyOf(nodes, capacity);
+			nodeCount = Arrays.copyOf(nodeCount, capacity);
+			inDegree = Arrays.copyOf(inDegree, capacity);
+			outDegree = Arrays.copyOf(outDegree, capacity);
+			for (int kind = 0; kind < 3; kind++) {
+				runOpen[kind] = Arrays.copyOf(runOpen[kind], capacity);
+				runStart[kind] = Arrays.copyOf(runStart[kind], capacity);
+				runValue[kind] = Arrays.copyOf(runValue[kind], capacity);
+			}
+			dirty = Arrays.copyOf(dirty, capacity);
+			dirtyStamp = Arrays.copyOf(dirtyStamp, capacity);
+			Arrays.fill(dirtyStamp, size, capacity, -1);
+		}
+		nodes[size] = node;
+		nodeIndex.put(node, size);
+		return size++;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+
+/**
+ * <code>DynBetweennessModeTask</code> asks whether Betweenness and Stress
+ * should be computed exactly or approximated from a sample of source nodes.
+ * 
+ * @author Jimmy
+ *
+ */
+public class DynBetweennessModeTask extends AbstractTask{
+
+	@Tunable(description="Approximate Betweenness and Stress by sampling source nodes?")
+	public boolean approximate = false;
+	
+	@Tunable(description="Number of sampled source nodes per time window (0 to derive it from the error bound)")
+	public int sampleCount = 0;
+	
+	@Tunable(description="Maximum error of the normalized Betweenness (epsilon)")
+	public double epsilon = 0.05;
+	
+	@Tunable(description="Probability of exceeding the maximum error (delta)")
+	public double delta = 0.1;
+	
+	@Override
+	public void run(TaskMonitor arg0) throws Exception {
+		
+	}
+	
+	public boolean wantsApproximation(){
+		return this.approximate;
+	}
+	
+	public int getSampleCount(){
+		return this.sampleCount;
+	}
+	
+	public double getEpsilon(){
+		return this.epsilon;
+	}
+	
+	public double getDelta(){
+		return this.delta;
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+
+/**
+ * <code>DynParallelWindowsTask</code> asks whether the time windows should be
+ * computed in parallel chunks rather than one after the other.
+ * 
+ * @author Jimmy
+ *
+ */
+public class DynParallelWindowsTask extends AbstractTask{
+
+	@Tunable(description="Compute independent time windows in parallel? (uses more memory)")
+	public boolean parallelWindows = false;
+	
+	@Override
+	public void run(TaskMonitor arg0) throws Exception {
+		
+	}
+	
+	public boolean wantsParallelWindows(){
+		return this.parallelWindows;
+	}
+
+}
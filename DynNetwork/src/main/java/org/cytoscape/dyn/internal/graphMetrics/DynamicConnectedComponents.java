@@ -0,0 +1,91 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import org.cytoscape.dyn.internal.view.model.DynNetworkView;
+import org.cytoscape.dyn.internal.view.model.DynNetworkViewManagerImpl;
+import org.cytoscape.session.CyNetworkNaming;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.dyn.internal.model.DynNetwork;
+import org.cytoscape.dyn.internal.model.DynNetworkManagerImpl;
+import org.cytoscape.model.CyNetworkFactory;
+import org.cytoscape.model.subnetwork.CyRootNetworkManager;
+
+/**
+ * <code>DynamicConnectedComponents</code> computes the connected component id
+ * and the component size of nodes over time, with the offline connectivity
+ * engine {@link TemporalConnectivity}. Directed networks get their weakly
+ * connected components.
+ * 
+ * @author Jimmy
+ *
+ * @param <T>
+ */
+public class DynamicConnectedComponents<T> extends AbstractTask {
+
+	private DynNetworkViewManagerImpl<T> dynNetViewManager;
+	private CyNetworkView cyNetworkView;
+	private CyNetworkFactory networkFactory;
+	private CyRootNetworkManager rootNetworkManager;
+	private CyNetworkNaming nameUtil;
+	private DynNetworkManagerImpl<T> dynNetManager;
+	/**
+	 * @param dynNetViewManager
+	 * @param cyNetworkView
+	 * @param networkFactory
+	 * @param rootNetworkManager
+	 * @param nameUtil
+	 * @param dynNetManager
+	 */
+	public DynamicConnectedComponents(
+			DynNetworkViewManagerImpl<T> dynNetViewManager,
+			CyNetworkView cyNetworkView, CyNetworkFactory networkFactory,
+			CyRootNetworkManager rootNetworkManager, CyNetworkNaming nameUtil,
+			DynNetworkManagerImpl<T> dynNetManager) {
+		this.dynNetViewManager = dynNetViewManager;
+		this.cyNetworkView = cyNetworkView;
+		this.networkFactory = networkFactory;
+		this.rootNetworkManager = rootNetworkManager;
+		this.nameUtil = nameUtil;
+		this.dynNetManager = dynNetManager;
+
+	}
+
+	public void run(TaskMonitor monitor) {
+
+		monitor.setTitle("Calculating Connected Components");
+		DynNetworkView<T> view = dynNetViewManager
+				.getDynNetworkView(cyNetworkView);
+		DynNetwork<T> dynamicnetwork = view.getNetwork();
+
+		TemporalConnectivity<T> connectivity = new TemporalConnectivity<T>(
+				dynamicnetwork);
+		connectivity.run(dynamicnetwork.getEventTimeList());
+
+		NodeSeries component = connectivity.getComponentSeries();
+		dynamicnetwork.writeNodeSeries("Component", component.getSuids(),
+				component.getValues(), component.getStarts(),
+				component.getEnds());
+		NodeSeries size = connectivity.getSizeSeries();
+		dynamicnetwork.writeNodeSeries("Component Size", size.getSuids(),
+				size.getValues(), size.getStarts(), size.getEnds());
+	}
+}
\ No newline at end of file
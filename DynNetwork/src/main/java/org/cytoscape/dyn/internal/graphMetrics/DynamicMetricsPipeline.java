@@ -0,0 +1,453 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.dyn.internal.model.DynNetwork;
+import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshotImpl;
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
+import org.cytoscape.dyn.internal.view.model.DynNetworkView;
+import org.cytoscape.dyn.internal.view.model.DynNetworkViewManagerImpl;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+
+/**
+ * <code>DynamicMetricsPipeline</code> computes several {@link WindowMetric}s
+ * in one pass over the event time list. A single producer walks the windows
+ * with one {@link DynNetworkSnapshotImpl} and publishes an immutable
+ * {@link MetricWindow} for each of them to a bounded queue per calculator. The
+ * calculators consume their queues concurrently, sharing one pool for their
+ * inner parallel work, and the task thread writes their results to the network
+ * and reports the progress per window.
+ * <p>
+ * With parallel windows the event time list is split into chunks of
+ * consecutive windows instead. Each worker moves its own snapshot over its
+ * chunk and computes all metrics with its own copies of the calculators; the
+ * results are written in window order as the chunks complete.
+ * <p>
+ * Windows with the same structural fingerprint as the window before are not
+ * computed again: the previous results are extended over them, so a run of
+ * windows that differ only in attribute values is written as one interval.
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public class DynamicMetricsPipeline<T> extends AbstractTask {
+
+	// number of windows the producer may run ahead of the slowest calculator
+	private static final int QUEUE_CAPACITY = 4;
+	// chunks per thread with parallel windows, to even out the load
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final long POLL_MILLIS = 100;
+
+	private DynNetworkViewManagerImpl<T> dynNetViewManager;
+	private CyNetworkView cyNetworkView;
+	private List<WindowMetric<T>> metrics;
+	private boolean parallelWindows;
+
+	/**
+	 * @param dynNetViewManager
+	 * @param cyNetworkView
+	 * @param metrics
+	 */
+	public DynamicMetricsPipeline(
+			DynNetworkViewManagerImpl<T> dynNetViewManager,
+			CyNetworkView cyNetworkView, List<WindowMetric<T>> metrics) {
+		this.dynNetViewManager = dynNetViewManager;
+		this.cyNetworkView = cyNetworkView;
+		this.metrics = new ArrayList<WindowMetric<T>>(metrics);
+	}
+
+	/**
+	 * Compute chunks of consecutive windows in parallel, instead of streaming
+	 * every window through one snapshot.
+	 * 
+	 * @param parallelWindows
+	 */
+	public void setParallelWindows(boolean parallelWindows) {
+		this.parallelWindows = parallelWindows;
+	}
+
+	@Override
+	public void run(TaskMonitor monitor) throws Exception {
+		if (metrics.size() == 1)
+			monitor.setTitle(metrics.get(0).getTitle());
+		else
+			monitor.setTitle("Calculating graph metrics");
+
+		DynNetworkView<T> view = dynNetViewManager
+				.getDynNetworkView(cyNetworkView);
+		DynNetwork<T> dynamicnetwork = view.getNetwork();
+		List<Double> eventTimeList = dynamicnetwork.getEventTimeList();
+		int windows = eventTimeList.size() - 1;
+		if (windows < 1 || metrics.isEmpty())
+			return;
+
+		if (parallelWindows)
+			runChunks(monitor, view, eventTimeList, windows);
+		else
+			runStream(monitor, view, eventTimeList, windows);
+	}
+
+	private void runStream(TaskMonitor monitor, DynNetworkView<T> view,
+			List<Double> eventTimeList, int windows) throws Exception {
+		List<BlockingQueue<MetricWindow<T>>> queues = new ArrayList<BlockingQueue<MetricWindow<T>>>();
+		for (int i = 0; i < metrics.size(); i++)
+			queues.add(new ArrayBlockingQueue<MetricWindow<T>>(QUEUE_CAPACITY));
+		BlockingQueue<WindowResult> results = new LinkedBlockingQueue<WindowResult>();
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ExecutorService pipeline = Executors
+				.newFixedThreadPool(metrics.size() + 1);
+		try {
+			pipeline.execute(new Producer(view, eventTimeList, queues, results));
+			for (int i = 0; i < metrics.size(); i++) {
+				metrics.get(i).initialize(executor, threads);
+				pipeline.execute(new Consumer(metrics.get(i), queues.get(i),
+						results, windows));
+			}
+
+			// a window is done when every calculator has written it
+			int[] pending = new int[windows];
+			for (int k = 0; k < windows; k++)
+				pending[k] = metrics.size();
+			int remaining = windows * metrics.size();
+			int done = 0;
+			while (remaining > 0) {
+				WindowResult result = take(results);
+				if (result == null)
+					return;
+				result.writeTo(view.getNetwork());
+				for (int k = result.getWindow(); k <= result.getLastWindow(); k++) {
+					remaining--;
+					if (--pending[k] == 0)
+						setProgress(monitor, ++done, windows);
+				}
+			}
+		} finally {
+			pipeline.shutdownNow();
+			executor.shutdownNow();
+		}
+	}
+
+	private void runChunks(TaskMonitor monitor, DynNetworkView<T> view,
+			List<Double> eventTimeList, int windows) throws Exception {
+		BlockingQueue<WindowResult> results = new LinkedBlockingQueue<WindowResult>();
+		int threads = Runtime.getRuntime().availableProcessors();
+		int chunks = Math.min(windows, CHUNKS_PER_THREAD * threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int c = 0; c < chunks; c++) {
+				// the chunks already use all threads, the calculators run in
+				// the thread of their chunk
+				List<WindowMetric<T>> copies = new ArrayList<WindowMetric<T>>();
+				for (WindowMetric<T> metric : metrics) {
+					WindowMetric<T> copy = metric.copy();
+					copy.initialize(null, 1);
+					copies.add(copy);
+				}
+				int from = (int) ((long) c * windows / chunks);
+				int to = (int) ((long) (c + 1) * windows / chunks);
+				executor.execute(new ChunkWorker(view, eventTimeList, from,
+						to, copies, results));
+			}
+
+			// results of later windows wait until the earlier ones are
+			// written; a result is kept at its first window and counts for
+			// every window it was extended over
+			List<List<WindowResult>> pending = new ArrayList<List<WindowResult>>(
+					windows);
+			for (int k = 0; k < windows; k++)
+				pending.add(new ArrayList<WindowResult>());
+			int[] covered = new int[windows];
+			int next = 0;
+			while (next < windows) {
+				WindowResult result = take(results);
+				if (result == null)
+					return;
+				pending.get(result.getWindow()).add(result);
+				for (int k = result.getWindow(); k <= result.getLastWindow(); k++)
+					covered[k]++;
+				while (next < windows && covered[next] == metrics.size()) {
+					for (WindowResult written : pending.get(next))
+						written.writeTo(view.getNetwork());
+					pending.set(next, null);
+					setProgress(monitor, ++next, windows);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Wait for the next result and rethrow the failure of a worker.
+	 * 
+	 * @param results
+	 * @return result, or null if the task was cancelled
+	 * @throws Exception
+	 */
+	private WindowResult take(BlockingQueue<WindowResult> results)
+			throws Exception {
+		while (!cancelled) {
+			WindowResult result = results.poll(POLL_MILLIS,
+					TimeUnit.MILLISECONDS);
+			if (result == null)
+				continue;
+			Throwable failure = result.getFailure();
+			if (failure instanceof Exception)
+				throw (Exception) failure;
+			else if (failure != null)
+				throw (Error) failure;
+			return result;
+		}
+		return null;
+	}
+
+	private void setProgress(TaskMonitor monitor, int done, int windows) {
+		monitor.setStatusMessage("Window " + done + " of " + windows);
+		monitor.setProgress((double) done / windows);
+	}
+
+	private WindowResult failure(Throwable t) {
+		WindowResult result = new WindowResult(-1, 0, 0);
+		result.setFailure(t);
+		return result;
+	}
+
+	/**
+	 * Move the snapshot to the window k and copy out the adjacency that the
+	 * calculators need, unless the structure is the same as in the previous
+	 * window.
+	 */
+	@SuppressWarnings("unchecked")
+	private MetricWindow<T> createWindow(
+			DynNetworkSnapshotImpl<T> networkSnapshot,
+			DynIntervalDouble snapshotInterval, List<Double> eventTimeList,
+			int k, List<WindowMetric<T>> metrics, MetricWindow<T> previous) {
+		double startTime = eventTimeList.get(k);
+		double endTime = eventTimeList.get(k + 1);
+		snapshotInterval.setStart(startTime);
+		snapshotInterval.setEnd(endTime);
+		networkSnapshot.setInterval((DynInterval<T>) snapshotInterval, 0.0,
+				0.0, 0.0);
+		long fingerprint = networkSnapshot.getFingerprint();
+		if (previous != null && previous.getFingerprint() == fingerprint)
+			return new MetricWindow<T>(k, startTime, endTime, fingerprint,
+					previous.getGraph(false), previous.getGraph(true));
+
+		boolean undirected = false, directed = false;
+		for (WindowMetric<T> metric : metrics)
+			if (metric.isDirected())
+				directed = true;
+			else
+				undirected = true;
+		SnapshotCSR<T> graph = undirected ? new SnapshotCSR<T>(
+				networkSnapshot, false, null) : null;
+		SnapshotCSR<T> directedGraph = directed ? new SnapshotCSR<T>(
+				networkSnapshot, true, null) : null;
+		return new MetricWindow<T>(k, startTime, endTime, fingerprint, graph,
+				directedGraph);
+	}
+
+	/**
+	 * Feeds the windows to one calculator and extends its last result over
+	 * the windows that have the same structure.
+	 */
+	private class Memo {
+
+		private final WindowMetric<T> metric;
+		private WindowResult last;
+		private long lastFingerprint;
+
+		Memo(WindowMetric<T> metric) {
+			this.metric = metric;
+		}
+
+		/**
+		 * @param window
+		 * @return the previous result once it cannot be extended any more, or
+		 *         null
+		 * @throws Exception
+		 */
+		WindowResult next(MetricWindow<T> window) throws Exception {
+			if (last != null && lastFingerprint == window.getFingerprint()
+					&& last.getLastWindow() + 1 == window.getIndex()) {
+				last.extend(window.getIndex(), window.getEnd());
+				return null;
+			}
+			WindowResult done = last;
+			last = new WindowResult(window.getIndex(), window.getStart(),
+					window.getEnd());
+			metric.compute(window, last);
+			lastFingerprint = window.getFingerprint();
+			return done;
+		}
+
+		/**
+		 * @return the last result, or null
+		 */
+		WindowResult flush() {
+			WindowResult done = last;
+			last = null;
+			return done;
+		}
+	}
+
+	/**
+	 * Walks the windows with one snapshot and hands each window to every
+	 * calculator queue.
+	 */
+	private class Producer implements Runnable {
+
+		private final DynNetworkView<T> view;
+		private final List<Double> eventTimeList;
+		private final List<BlockingQueue<MetricWindow<T>>> queues;
+		private final BlockingQueue<WindowResult> results;
+
+		Producer(DynNetworkView<T> view, List<Double> eventTimeList,
+				List<BlockingQueue<MetricWindow<T>>> queues,
+				BlockingQueue<WindowResult> results) {
+			this.view = view;
+			this.eventTimeList = eventTimeList;
+			this.queues = queues;
+			this.results = results;
+		}
+
+		public void run() {
+			try {
+				DynNetworkSnapshotImpl<T> networkSnapshot = new DynNetworkSnapshotImpl<T>(
+						view);
+				DynIntervalDouble snapshotInterval = new DynIntervalDouble(
+						eventTimeList.get(0), eventTimeList.get(0));
+				MetricWindow<T> window = null;
+				for (int k = 0; k < eventTimeList.size() - 1; k++) {
+					window = createWindow(networkSnapshot, snapshotInterval,
+							eventTimeList, k, metrics, window);
+					for (BlockingQueue<MetricWindow<T>> queue : queues)
+						queue.put(window);
+				}
+			} catch (InterruptedException e) {
+				// cancelled
+			} catch (Throwable t) {
+				results.add(failure(t));
+			}
+		}
+	}
+
+	/**
+	 * Feeds the windows of one queue to one calculator, in order.
+	 */
+	private class Consumer implements Runnable {
+
+		private final Memo memo;
+		private final BlockingQueue<MetricWindow<T>> queue;
+		private final BlockingQueue<WindowResult> results;
+		private final int windows;
+
+		Consumer(WindowMetric<T> metric, BlockingQueue<MetricWindow<T>> queue,
+				BlockingQueue<WindowResult> results, int windows) {
+			this.memo = new Memo(metric);
+			this.queue = queue;
+			this.results = results;
+			this.windows = windows;
+		}
+
+		public void run() {
+			try {
+				for (int k = 0; k < windows; k++) {
+					WindowResult result = memo.next(queue.take());
+					if (result != null)
+						results.add(result);
+				}
+				results.add(memo.flush());
+			} catch (InterruptedException e) {
+				// cancelled
+			} catch (Throwable t) {
+				results.add(failure(t));
+			}
+		}
+	}
+
+	/**
+	 * Computes all metrics on the windows from..to-1 with its own snapshot, so
+	 * that chunks do not share any visible interval state.
+	 */
+	private class ChunkWorker implements Runnable {
+
+		private final DynNetworkView<T> view;
+		private final List<Double> eventTimeList;
+		private final int from;
+		private final int to;
+		private final List<WindowMetric<T>> copies;
+		private final BlockingQueue<WindowResult> results;
+
+		ChunkWorker(DynNetworkView<T> view, List<Double> eventTimeList,
+				int from, int to, List<WindowMetric<T>> copies,
+				BlockingQueue<WindowResult> results) {
+			this.view = view;
+			this.eventTimeList = eventTimeList;
+			this.from = from;
+			this.to = to;
+			this.copies = copies;
+			this.results = results;
+		}
+
+		public void run() {
+			try {
+				DynNetworkSnapshotImpl<T> networkSnapshot = new DynNetworkSnapshotImpl<T>(
+						view);
+				DynIntervalDouble snapshotInterval = new DynIntervalDouble(
+						eventTimeList.get(from), eventTimeList.get(from));
+				List<Memo> memos = new ArrayList<Memo>();
+				for (WindowMetric<T> metric : copies)
+					memos.add(new Memo(metric));
+				MetricWindow<T> window = null;
+				for (int k = from; k < to; k++) {
+					if (Thread.currentThread().isInterrupted())
+						return;
+					window = createWindow(networkSnapshot, snapshotInterval,
+							eventTimeList, k, copies, window);
+					for (Memo memo : memos) {
+						WindowResult result = memo.next(window);
+						if (result != null)
+							results.add(result);
+					}
+				}
+				for (Memo memo : memos)
+					results.add(memo.flush());
+			} catch (Throwable t) {
+				results.add(failure(t));
+			}
+		}
+	}
+}
@@ -19,24 +19,16 @@
 package org.cytoscape.dyn.internal.graphMetrics;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
-import Jama.EigenvalueDecomposition;
-import Jama.Matrix;
-
-import org.cytoscape.dyn.internal.model.DynNetwork;
-import org.cytoscape.dyn.internal.model.DynNetworkFactoryImpl;
 import org.cytoscape.dyn.internal.model.DynNetworkManagerImpl;
-import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshotImpl;
-import org.cytoscape.dyn.internal.model.tree.DynInterval;
-import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
-import org.cytoscape.dyn.internal.view.model.DynNetworkView;
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
 import org.cytoscape.dyn.internal.view.model.DynNetworkViewManagerImpl;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNode;
-import org.cytoscape.model.CyTableUtil;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.session.CyNetworkNaming;
 import org.cytoscape.view.model.CyNetworkView;
@@ -44,10 +36,20 @@ import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.TaskMonitor;
 
 /**
+ * <code>EigenVector</code> computes the eigenvector centrality of each time
+ * window by sparse power iteration, starting from the eigenvector of the
+ * previous window.
+ * 
  * @author Jimmy
  * 
  */
-public class EigenVector<T> extends AbstractTask {
+public class EigenVector<T> extends AbstractTask implements
+		WindowMetric<T> {
+
+	private static final double TOLERANCE = 1e-10;
+	private static final int MAX_ITERATIONS = 10000;
+	// keeps every component of the starting vector positive
+	private static final double START_FLOOR = 1e-3;
 
 	private DynNetworkViewManagerImpl<T> dynNetViewManager;
 	private CyNetworkView cyNetworkView;
@@ -55,6 +57,8 @@ public class EigenVector<T> extends AbstractTask {
 	private CyRootNetworkManager rootNetworkManager;
 	private CyNetworkNaming nameUtil;
 	private DynNetworkManagerImpl<T> dynNetManager;
+	// eigenvector of the previous window, used as the starting vector
+	private HashMap<CyNode, Double> previousValues;
 
 	/**
 	 * @param dynNetViewManager
@@ -76,89 +80,116 @@ public class EigenVector<T> extends AbstractTask {
 		this.dynNetManager = dynNetManager;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void run(TaskMonitor monitor) throws Exception {
-		// TODO Auto-generated method stub
-		monitor.setTitle("Calculating EigenVectorCentrality");
-		DynNetworkFactoryImpl<T> dynNetFactory = new DynNetworkFactoryImpl<T>(
-				networkFactory, rootNetworkManager, dynNetManager, nameUtil);
-		DynNetworkView<T> view = dynNetViewManager
-				.getDynNetworkView(cyNetworkView);
-		DynNetworkSnapshotImpl<T> networkSnapshot = new DynNetworkSnapshotImpl<T>(
-				view);
-
-		// Need the dynamic network to get event time list
-		DynNetwork<T> dynamicnetwork = view.getNetwork();
-		//System.out.println(CyTableUtil.getNodesInState(
-		//		dynamicnetwork.getNetwork(), "selected", true));
-		// Declaring and Initialising eventTimeList of the Dynamic Network
-
-		List<Double> eventTimeList = new ArrayList<Double>();
-		eventTimeList = dynamicnetwork.getEventTimeList();
-
-		Iterator<Double> iterator = eventTimeList.iterator();
-
-		// Declaring and Initialising two temporary variables for start time and
-		// end time
-
-		Double startTime, endTime;
-		startTime = iterator.next();
-		DynIntervalDouble snapshotInterval = new DynIntervalDouble(startTime,
-				startTime);
-		networkSnapshot.setInterval((DynInterval<T>) snapshotInterval, 0.0,
-				0.0, 0.0);
-		List<CyNode> nodeList = new ArrayList<CyNode>();
-
-		while (iterator.hasNext()) {
-
-			snapshotInterval.setStart(startTime);
-			endTime = iterator.next();
-			snapshotInterval.setEnd(endTime);
-			// List<CyNode> nodeList=new ArrayList<CyNode>();
-
-			networkSnapshot.setInterval((DynInterval<T>) snapshotInterval, 0.0,
-					0.0, 0.0);
-			nodeList = networkSnapshot.getNodes();
-			Collections.sort(nodeList, new MyComparator());
-
-			double[][] adjacencyMatrixOfNetwork = new double[nodeList.size()][nodeList
-					.size()];
-
-			int i = 0;
-			// System.out.println(nodeList);
-			for (CyNode root : nodeList) {
-				for (CyNode neighbor : networkSnapshot.getNeighbors(root)) {
-					adjacencyMatrixOfNetwork[i][nodeList.indexOf(neighbor)] = 1.0;
-				}
-				i++;
-			}
-			Matrix A = new Matrix(adjacencyMatrixOfNetwork);
+		List<WindowMetric<T>> metrics = new ArrayList<WindowMetric<T>>();
+		metrics.add(this);
+		new DynamicMetricsPipeline<T>(dynNetViewManager, cyNetworkView, metrics)
+				.run(monitor);
+	}
 
-			EigenvalueDecomposition e = A.eig();
-			Matrix V = e.getV();
+	public String getTitle() {
+		return "Calculating EigenVectorCentrality";
+	}
 
-			double[][] EigenVectors = V.getArray();
+	public boolean isDirected() {
+		return false;
+	}
 
-			double min = Double.MAX_VALUE, max = -Double.MAX_VALUE, totalsum = 0, currentvalue;
-			for (int j = 0; j < nodeList.size(); j++) {
+	public WindowMetric<T> copy() {
+		return new EigenVector<T>(
+				dynNetViewManager, cyNetworkView, networkFactory,
+				rootNetworkManager, nameUtil, dynNetManager);
+	}
 
-				currentvalue = EigenVectors[j][nodeList.size() - 1];
-				// System.out.println(currentvalue);
-				if (currentvalue < min) {
-					min = currentvalue;
-				}
-				if (currentvalue > max) {
-					max = currentvalue;
+	public void initialize(ExecutorService executor, int parallelism) {
+		this.previousValues = new HashMap<CyNode, Double>();
+	}
+
+	public void compute(MetricWindow<T> window, WindowResult result) {
+		SnapshotCSR<T> csr = window.getGraph(false);
+		int n = csr.getNodeCount();
+
+		double[] x = new double[n];
+		for (int j = 0; j < n; j++) {
+			Double previous = previousValues.get(csr.getNode(j));
+			x[j] = (previous == null ? 0 : previous) + START_FLOOR;
+		}
+		double[] eigenvectorValues = powerIteration(csr, x);
+
+		long[] suids = new long[n];
+		HashMap<CyNode, Double> currentValues = new HashMap<CyNode, Double>();
+		for (int j = 0; j < n; j++) {
+			CyNode node = csr.getNode(j);
+			suids[j] = node.getSUID();
+			currentValues.put(node, eigenvectorValues[j]);
+		}
+		previousValues = currentValues;
+		result.put("Eigenvector", suids, eigenvectorValues);
+	}
+
+	/**
+	 * Computes the unit eigenvector of the largest eigenvalue of the binary
+	 * adjacency matrix by power iteration on (A + I), which has the same
+	 * eigenvectors but cannot oscillate on bipartite graphs. The iteration
+	 * starts from x and stops when no component changes by more than
+	 * TOLERANCE.
+	 * 
+	 * @param csr
+	 * @param x
+	 *            positive starting vector, overwritten
+	 * @return eigenvector
+	 */
+	private double[] powerIteration(SnapshotCSR<T> csr, double[] x) {
+		int n = csr.getNodeCount();
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+
+		// drop parallel edges, the adjacency matrix is binary
+		int[] rowStart = new int[n + 1];
+		int[] columns = new int[targets.length];
+		int[] stamp = new int[n];
+		Arrays.fill(stamp, -1);
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			rowStart[i] = count;
+			for (int k = offsets[i]; k < offsets[i + 1]; k++)
+				if (stamp[targets[k]] != i) {
+					stamp[targets[k]] = i;
+					columns[count++] = targets[k];
 				}
-				dynNetFactory.setAttributesUpdate(dynamicnetwork,
-						nodeList.get(j), "Eigenvector",
-						Double.toString(currentvalue), "real",
-						startTime.toString(), endTime.toString());
-				//System.out.println(currentvalue);
-				totalsum = totalsum + currentvalue;
+		}
+		rowStart[n] = count;
+
+		normalize(x);
+		double[] y = new double[n];
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			for (int i = 0; i < n; i++) {
+				double sum = x[i];
+				for (int k = rowStart[i]; k < rowStart[i + 1]; k++)
+					sum += x[columns[k]];
+				y[i] = sum;
 			}
-			startTime = endTime;
+			normalize(y);
+			double change = 0;
+			for (int i = 0; i < n; i++)
+				change = Math.max(change, Math.abs(y[i] - x[i]));
+			double[] tmp = x;
+			x = y;
+			y = tmp;
+			if (change < TOLERANCE)
+				break;
 		}
+		return x;
+	}
+
+	private static void normalize(double[] x) {
+		double norm = 0;
+		for (int i = 0; i < x.length; i++)
+			norm += x[i] * x[i];
+		norm = Math.sqrt(norm);
+		if (norm > 0)
+			for (int i = 0; i < x.length; i++)
+				x[i] /= norm;
 	}
 }
@@ -18,6 +18,9 @@
  */
 package org.cytoscape.dyn.internal.graphMetrics;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.cytoscape.dyn.internal.CyActivator;
 import org.cytoscape.dyn.internal.model.DynNetworkManagerImpl;
 import org.cytoscape.dyn.internal.view.model.DynNetworkViewManagerImpl;
@@ -27,6 +30,7 @@ import org.cytoscape.session.CyNetworkNaming;
 import org.cytoscape.task.AbstractNetworkViewTaskFactory;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.TaskIterator;
 import org.cytoscape.work.TaskManager;
 import org.cytoscape.work.Tunable;
@@ -80,32 +84,58 @@ public class GraphMetricsTasks<T, C> extends AbstractNetworkViewTaskFactory {
 	public TaskIterator createTaskIterator(CyNetworkView arg0) {
 		// TODO Auto-generated method stub
 		DynDirectedNetworkTask treatNetworkDirected = new DynDirectedNetworkTask();
-		TaskIterator iterator = new TaskIterator(treatNetworkDirected);
+		DynBetweennessModeTask betweennessMode = new DynBetweennessModeTask();
+		DynParallelWindowsTask windowsMode = new DynParallelWindowsTask();
+		TaskIterator iterator = new TaskIterator(treatNetworkDirected,
+				betweennessMode, windowsMode);
 		taskManager.execute(iterator);
-		if (treatNetworkDirected.wantsDirected())
-			return new TaskIterator(new DynamicDirectedBetweennessStress<T>(
+		List<WindowMetric<T>> metrics = new ArrayList<WindowMetric<T>>();
+		AbstractTask degree;
+		if (treatNetworkDirected.wantsDirected()) {
+			DynamicDirectedBetweennessStress<T> betweenness = new DynamicDirectedBetweennessStress<T>(
+					dynNetViewManager, arg0, networkFactory,
+					rootNetworkManager, nameUtil, dynNetworkManager);
+			if (betweennessMode.wantsApproximation())
+				betweenness.setApproximation(betweennessMode.getSampleCount(),
+						betweennessMode.getEpsilon(),
+						betweennessMode.getDelta());
+			metrics.add(betweenness);
+			metrics.add(new DynamicDirectedEccCloseRadCentro<T>(
 					dynNetViewManager, arg0, networkFactory,
-					rootNetworkManager, nameUtil, dynNetworkManager),
-					new DynamicDirectedEccCloseRadCentro<T>(dynNetViewManager,
-							arg0, networkFactory, rootNetworkManager, nameUtil,
-							dynNetworkManager), new DynamicInOutDegree<T>(
-							dynNetViewManager, arg0, networkFactory,
-							rootNetworkManager, nameUtil, dynNetworkManager),
-					new GraphMetricsPanelTask<T, C>(cyActivator,
-							dynNetViewManager, arg0));
-		else
-			return new TaskIterator(new EigenVector<T>(dynNetViewManager, arg0,
+					rootNetworkManager, nameUtil, dynNetworkManager));
+			degree = new DynamicInOutDegree<T>(dynNetViewManager, arg0,
 					networkFactory, rootNetworkManager, nameUtil,
-					dynNetworkManager), new DynamicDistEccCloseRad<T>(
+					dynNetworkManager);
+		} else {
+			DynamicBetweennessStress<T> betweenness = new DynamicBetweennessStress<T>(
 					dynNetViewManager, arg0, networkFactory,
-					rootNetworkManager, nameUtil, dynNetworkManager),
-					new DynamicBetweennessStress<T>(dynNetViewManager, arg0,
-							networkFactory, rootNetworkManager, nameUtil,
-							dynNetworkManager), new DynamicDegree<T>(
-							dynNetViewManager, arg0, networkFactory,
-							rootNetworkManager, nameUtil, dynNetworkManager),
-					new GraphMetricsPanelTask<T, C>(cyActivator,
-							dynNetViewManager, arg0));
+					rootNetworkManager, nameUtil, dynNetworkManager);
+			if (betweennessMode.wantsApproximation())
+				betweenness.setApproximation(betweennessMode.getSampleCount(),
+						betweennessMode.getEpsilon(),
+						betweennessMode.getDelta());
+			metrics.add(new EigenVector<T>(dynNetViewManager, arg0,
+					networkFactory, rootNetworkManager, nameUtil,
+					dynNetworkManager));
+			metrics.add(new DynamicDistEccCloseRad<T>(dynNetViewManager,
+					arg0, networkFactory, rootNetworkManager, nameUtil,
+					dynNetworkManager));
+			metrics.add(betweenness);
+			degree = new DynamicDegree<T>(dynNetViewManager, arg0,
+					networkFactory, rootNetworkManager, nameUtil,
+					dynNetworkManager);
+		}
+		// the window metrics share one pass over the event time list, the
+		// degree is a sweep over the events of its own
+		DynamicMetricsPipeline<T> pipeline = new DynamicMetricsPipeline<T>(
+				dynNetViewManager, arg0, metrics);
+		pipeline.setParallelWindows(windowsMode.wantsParallelWindows());
+		return new TaskIterator(pipeline, degree,
+				new DynamicConnectedComponents<T>(dynNetViewManager, arg0,
+						networkFactory, rootNetworkManager, nameUtil,
+						dynNetworkManager),
+				new GraphMetricsPanelTask<T, C>(cyActivator,
+						dynNetViewManager, arg0));
 	}
 
 }
\ No newline at end of file
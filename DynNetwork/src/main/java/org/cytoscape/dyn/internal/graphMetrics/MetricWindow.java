@@ -0,0 +1,93 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+
+/**
+ * <code>MetricWindow</code> is the immutable snapshot of one time window that
+ * {@link DynamicMetricsPipeline} publishes to the metric calculators. It holds
+ * the window bounds and the compressed adjacency of the nodes and edges present
+ * in the window, so it can be read by several threads at once, together with
+ * the structural fingerprint of the snapshot it was copied from.
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public final class MetricWindow<T> {
+
+	private final int index;
+	private final double start;
+	private final double end;
+	private final long fingerprint;
+	private final SnapshotCSR<T> graph;
+	private final SnapshotCSR<T> directedGraph;
+
+	/**
+	 * @param index
+	 *            position of the window in the event time list
+	 * @param start
+	 * @param end
+	 * @param fingerprint
+	 *            structural fingerprint of the window
+	 * @param graph
+	 *            undirected adjacency, or null if no metric needs it
+	 * @param directedGraph
+	 *            directed adjacency, or null if no metric needs it
+	 */
+	MetricWindow(int index, double start, double end, long fingerprint,
+			SnapshotCSR<T> graph, SnapshotCSR<T> directedGraph) {
+		this.index = index;
+		this.start = start;
+		this.end = end;
+		this.fingerprint = fingerprint;
+		this.graph = graph;
+		this.directedGraph = directedGraph;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public double getStart() {
+		return start;
+	}
+
+	public double getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return fingerprint of the visible nodes and edges, see
+	 *         {@link org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot#getFingerprint()}
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @param directed
+	 * @return the adjacency of the window, with edges followed in their
+	 *         direction only if directed
+	 */
+	public SnapshotCSR<T> getGraph(boolean directed) {
+		return directed ? directedGraph : graph;
+	}
+}
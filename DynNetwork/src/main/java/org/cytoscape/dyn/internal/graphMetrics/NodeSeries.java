@@ -0,0 +1,71 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.Arrays;
+
+import org.cytoscape.dyn.internal.model.DynNetwork;
+
+/**
+ * <code>NodeSeries</code> collects node value intervals in the layout expected
+ * by
+ * {@link DynNetwork#writeNodeSeries(String, long[], double[], double[], double[])}
+ * .
+ * 
+ * @author Jimmy
+ * 
+ */
+public final class NodeSeries {
+
+	private long[] suids = new long[16];
+	private double[] values = new double[16];
+	private double[] starts = new double[16];
+	private double[] ends = new double[16];
+	private int size;
+
+	void add(long suid, double value, double start, double end) {
+		if (size == suids.length) {
+			suids = Arrays.copyOf(suids, 2 * size);
+			values = Arrays.copyOf(values, 2 * size);
+			starts = Arrays.copyOf(starts, 2 * size);
+			ends = Arrays.copyOf(ends, 2 * size);
+		}
+		suids[size] = suid;
+		values[size] = value;
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+
+	public long[] getSuids() {
+		return Arrays.copyOf(suids, size);
+	}
+
+	public double[] getValues() {
+		return Arrays.copyOf(values, size);
+	}
+
+	public double[] getStarts() {
+		return Arrays.copyOf(starts, size);
+	}
+
+	public double[] getEnds() {
+		return Arrays.copyOf(ends, size);
+	}
+}
@@ -0,0 +1,527 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.dyn.internal.model.DynNetwork;
+import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+/**
+ * <code>TemporalConnectivity</code> computes the connected components of all
+ * time windows at once, with the offline dynamic connectivity method: every
+ * edge is visible in a range of windows, each range is stored in the O(log T)
+ * nodes of a segment tree over the windows that cover it, and a depth-first
+ * traversal of the tree unites the endpoints of the ranges on the way down and
+ * undoes the unions on the way up, with a union-find by size without path
+ * compression. The union-find work is O((n+m) log T log n) for n nodes, m edge
+ * ranges and T windows. Edges are followed in both directions, so directed
+ * networks get their weakly connected components.
+ * <p>
+ * The component id of a node is the smallest SUID in its component. The
+ * union-find keeps the members of each component in a circular list, and in
+ * each window only the components containing a node that appears or
+ * disappears, or an endpoint of an edge that appears or disappears, are
+ * relabeled: the component of any other node is the same as in the previous
+ * window. Labeling adds the size of those components to the work of each
+ * window, instead of n. A new value interval is emitted only when the
+ * component id or size of a node changes.
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public class TemporalConnectivity<T> {
+
+	private final DynNetwork<T> network;
+	private final HashMap<CyNode, Integer> nodeIndex;
+	private CyNode[] nodes;
+	private int nodeCount;
+
+	// visible window ranges of node and edge intervals, from the sweep
+	private int[] nodeRangeNode;
+	private int[] nodeRangeFrom;
+	private int[] nodeRangeTo;
+	private int nodeRanges;
+	private int[] edgeRangeSource;
+	private int[] edgeRangeTarget;
+	private int[] edgeRangeFrom;
+	private int[] edgeRangeTo;
+	private int edgeRanges;
+
+	// merged presence ranges of each node, sorted by window
+	private int[] presenceOffsets;
+	private int[] presenceFrom;
+	private int[] presenceTo;
+
+	// nodes whose component may change in each window, grouped by window
+	private int[] eventWindow;
+	private int[] eventNode;
+	private int events;
+	private int[] eventOffsets;
+	private int[] eventNodes;
+
+	// segment tree over the windows, with a linked list of unions per node
+	private int[] head;
+	private int[] opSource;
+	private int[] opTarget;
+	private int[] opNext;
+	private int ops;
+
+	// union-find with rollback
+	private int[] parent;
+	private int[] size;
+	private long[] minSuid;
+	private int[] next;
+	private int[] visited;
+	private int[] history;
+	private long[] historyMin;
+	private int historySize;
+
+	private double[] eventTimes;
+	private boolean[] runOpen;
+	private double[] runStart;
+	private long[] runComponent;
+	private int[] runSize;
+	private NodeSeries componentSeries;
+	private NodeSeries sizeSeries;
+
+	/**
+	 * @param network
+	 */
+	public TemporalConnectivity(DynNetwork<T> network) {
+		this.network = network;
+		this.nodeIndex = new HashMap<CyNode, Integer>();
+		this.nodes = new CyNode[16];
+		this.nodeRangeNode = new int[16];
+		this.nodeRangeFrom = new int[16];
+		this.nodeRangeTo = new int[16];
+		this.edgeRangeSource = new int[16];
+		this.edgeRangeTarget = new int[16];
+		this.edgeRangeFrom = new int[16];
+		this.edgeRangeTo = new int[16];
+		this.eventWindow = new int[16];
+		this.eventNode = new int[16];
+		this.componentSeries = new NodeSeries();
+		this.sizeSeries = new NodeSeries();
+	}
+
+	/**
+	 * Compute the components of the windows between consecutive event times.
+	 * The components in a window are those at its first event.
+	 * 
+	 * @param eventTimeList
+	 */
+	public void run(List<Double> eventTimeList) {
+		int windows = eventTimeList.size() - 1;
+		if (windows < 1)
+			return;
+		eventTimes = new double[eventTimeList.size()];
+		for (int k = 0; k < eventTimes.length; k++)
+			eventTimes[k] = eventTimeList.get(k);
+
+		sweep(windows);
+		mergePresence();
+
+		for (int v = 0; v < nodeCount; v++)
+			for (int p = presenceOffsets[v]; p < presenceOffsets[v + 1]; p++)
+				addEvents(v, presenceFrom[p], presenceTo[p], windows);
+
+		int treeSize = 1;
+		while (treeSize < windows)
+			treeSize <<= 1;
+		head = new int[2 * treeSize];
+		Arrays.fill(head, -1);
+		opSource = new int[16];
+		opTarget = new int[16];
+		opNext = new int[16];
+		for (int e = 0; e < edgeRanges; e++)
+			storeEdgeRange(e, windows);
+		groupEvents(windows);
+
+		parent = new int[nodeCount];
+		size = new int[nodeCount];
+		minSuid = new long[nodeCount];
+		next = new int[nodeCount];
+		visited = new int[nodeCount];
+		history = new int[16];
+		historyMin = new long[16];
+		for (int v = 0; v < nodeCount; v++) {
+			parent[v] = v;
+			size[v] = 1;
+			minSuid[v] = nodes[v].getSUID();
+			next[v] = v;
+			visited[v] = -1;
+		}
+		runOpen = new boolean[nodeCount];
+		runStart = new double[nodeCount];
+		runComponent = new long[nodeCount];
+		runSize = new int[nodeCount];
+
+		traverse(1, 0, treeSize - 1, windows);
+
+		for (int v = 0; v < nodeCount; v++)
+			if (runOpen[v])
+				closeRun(v, eventTimes[windows]);
+	}
+
+	/**
+	 * @return component id intervals, the smallest node SUID of the component
+	 */
+	public NodeSeries getComponentSeries() {
+		return componentSeries;
+	}
+
+	/**
+	 * @return component size intervals
+	 */
+	public NodeSeries getSizeSeries() {
+		return sizeSeries;
+	}
+
+	/*
+	 * Collects the window range in which each node and edge interval is
+	 * visible, with timeline cursors that do not set the on/off flags of the
+	 * intervals, so that the sweep does not interfere with the view.
+	 */
+	@SuppressWarnings("unchecked")
+	private void sweep(int windows) {
+		TimelineCursor<T> nodeCursor = network.getNodeTimelineCursor(false);
+		TimelineCursor<T> edgeCursor = network.getEdgeTimelineCursor(false);
+		Map<DynInterval<T>, Integer> openNodes = new IdentityHashMap<DynInterval<T>, Integer>();
+		Map<DynInterval<T>, Integer> openEdges = new IdentityHashMap<DynInterval<T>, Integer>();
+		DynIntervalDouble point = new DynIntervalDouble(0.0, 0.0);
+
+		for (int k = 0; k < windows; k++) {
+			point.setStart(eventTimes[k]);
+			point.setEnd(eventTimes[k]);
+			for (DynInterval<T> i : nodeCursor
+					.searchChanged((DynInterval<T>) point))
+				if (nodeCursor.contains(i))
+					openNodes.put(i, k);
+				else if (openNodes.containsKey(i))
+					addNodeRange(i, openNodes.remove(i), k - 1);
+			for (DynInterval<T> i : edgeCursor
+					.searchChanged((DynInterval<T>) point))
+				if (edgeCursor.contains(i))
+					openEdges.put(i, k);
+				else if (openEdges.containsKey(i))
+					addEdgeRange(i, openEdges.remove(i), k - 1);
+		}
+		for (Map.Entry<DynInterval<T>, Integer> entry : openNodes.entrySet())
+			addNodeRange(entry.getKey(), entry.getValue(), windows - 1);
+		for (Map.Entry<DynInterval<T>, Integer> entry : openEdges.entrySet())
+			addEdgeRange(entry.getKey(), entry.getValue(), windows - 1);
+	}
+
+	private void addNodeRange(DynInterval<T> interval, int from, int to) {
+		CyNode node = network.getNode(interval);
+		if (node == null)
+			return;
+		if (nodeRanges == nodeRangeNode.length) {
+			int capacity = 2 * nodeRanges;
+			nodeRangeNode = Arrays.copyOf(nodeRangeNode, capacity);
+			nodeRangeFrom = Arrays.copyOf(nodeRangeFrom, capacity);
+			nodeRangeTo = Arrays.copyOf(nodeRangeTo, capacity);
+		}
+		nodeRangeNode[nodeRanges] = getIndex(node);
+		nodeRangeFrom[nodeRanges] = from;
+		nodeRangeTo[nodeRanges] = to;
+		nodeRanges++;
+	}
+
+	private void addEdgeRange(DynInterval<T> interval, int from, int to) {
+		CyEdge edge = network.getEdge(interval);
+		if (edge == null || edge.getSource() == edge.getTarget())
+			return;
+		if (edgeRanges == edgeRangeSource.length) {
+			int capacity = 2 * edgeRanges;
+			edgeRangeSource = Arrays.copyOf(edgeRangeSource, capacity);
+			edgeRangeTarget = Arrays.copyOf(edgeRangeTarget, capacity);
+			edgeRangeFrom = Arrays.copyOf(edgeRangeFrom, capacity);
+			edgeRangeTo = Arrays.copyOf(edgeRangeTo, capacity);
+		}
+		edgeRangeSource[edgeRanges] = getIndex(edge.getSource());
+		edgeRangeTarget[edgeRanges] = getIndex(edge.getTarget());
+		edgeRangeFrom[edgeRanges] = from;
+		edgeRangeTo[edgeRanges] = to;
+		edgeRanges++;
+	}
+
+	/*
+	 * Groups the node ranges by node and merges overlapping ranges of parallel
+	 * intervals.
+	 */
+	private void mergePresence() {
+		presenceOffsets = new int[nodeCount + 1];
+		for (int r = 0; r < nodeRanges; r++)
+			presenceOffsets[nodeRangeNode[r] + 1]++;
+		for (int v = 0; v < nodeCount; v++)
+			presenceOffsets[v + 1] += presenceOffsets[v];
+		long[] keys = new long[nodeRanges];
+		int[] fill = Arrays.copyOf(presenceOffsets, nodeCount);
+		for (int r = 0; r < nodeRanges; r++)
+			keys[fill[nodeRangeNode[r]]++] = ((long) nodeRangeFrom[r] << 32)
+					| nodeRangeTo[r];
+
+		presenceFrom = new int[nodeRanges];
+		presenceTo = new int[nodeRanges];
+		int count = 0;
+		for (int v = 0; v < nodeCount; v++) {
+			int lo = presenceOffsets[v], hi = presenceOffsets[v + 1];
+			Arrays.sort(keys, lo, hi);
+			presenceOffsets[v] = count;
+			for (int p = lo; p < hi; p++) {
+				int from = (int) (keys[p] >>> 32);
+				int to = (int) keys[p];
+				if (count > presenceOffsets[v]
+						&& from <= presenceTo[count - 1] + 1)
+					presenceTo[count - 1] = Math.max(presenceTo[count - 1], to);
+				else {
+					presenceFrom[count] = from;
+					presenceTo[count] = to;
+					count++;
+				}
+			}
+		}
+		presenceOffsets[nodeCount] = count;
+	}
+
+	/*
+	 * Clips the window range of an edge to the windows in which both
+	 * endpoints are present, and stores the pieces in the segment tree.
+	 */
+	private void storeEdgeRange(int e, int windows) {
+		int u = edgeRangeSource[e], v = edgeRangeTarget[e];
+		int from = edgeRangeFrom[e], to = edgeRangeTo[e];
+		for (int p = firstPresence(u, from); p < presenceOffsets[u + 1]
+				&& presenceFrom[p] <= to; p++) {
+			int lo = Math.max(from, presenceFrom[p]);
+			int hi = Math.min(to, presenceTo[p]);
+			for (int q = firstPresence(v, lo); q < presenceOffsets[v + 1]
+					&& presenceFrom[q] <= hi; q++) {
+				int l = Math.max(lo, presenceFrom[q]);
+				int r = Math.min(hi, presenceTo[q]);
+				addEvents(u, l, r, windows);
+				addEvents(v, l, r, windows);
+				insert(1, 0, head.length / 2 - 1, l, r, u, v);
+			}
+		}
+	}
+
+	// first presence range of the node that ends at or after the window
+	private int firstPresence(int v, int window) {
+		int lo = presenceOffsets[v], hi = presenceOffsets[v + 1];
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (presenceTo[mid] < window)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private boolean isPresent(int v, int window) {
+		int p = firstPresence(v, window);
+		return p < presenceOffsets[v + 1] && presenceFrom[p] <= window;
+	}
+
+	// the node may change component where the range starts and after it ends
+	private void addEvents(int v, int from, int to, int windows) {
+		addEvent(v, from);
+		if (to + 1 < windows)
+			addEvent(v, to + 1);
+	}
+
+	private void addEvent(int v, int window) {
+		if (events == eventNode.length) {
+			eventWindow = Arrays.copyOf(eventWindow, 2 * events);
+			eventNode = Arrays.copyOf(eventNode, 2 * events);
+		}
+		eventWindow[events] = window;
+		eventNode[events++] = v;
+	}
+
+	private void groupEvents(int windows) {
+		eventOffsets = new int[windows + 1];
+		for (int e = 0; e < events; e++)
+			eventOffsets[eventWindow[e] + 1]++;
+		for (int w = 0; w < windows; w++)
+			eventOffsets[w + 1] += eventOffsets[w];
+		eventNodes = new int[events];
+		int[] fill = Arrays.copyOf(eventOffsets, windows);
+		for (int e = 0; e < events; e++)
+			eventNodes[fill[eventWindow[e]]++] = eventNode[e];
+		eventWindow = null;
+		eventNode = null;
+	}
+
+	private void insert(int node, int l, int r, int from, int to, int u,
+			int v) {
+		if (from <= l && r <= to) {
+			if (ops == opSource.length) {
+				opSource = Arrays.copyOf(opSource, 2 * ops);
+				opTarget = Arrays.copyOf(opTarget, 2 * ops);
+				opNext = Arrays.copyOf(opNext, 2 * ops);
+			}
+			opSource[ops] = u;
+			opTarget[ops] = v;
+			opNext[ops] = head[node];
+			head[node] = ops++;
+			return;
+		}
+		int mid = (l + r) >>> 1;
+		if (from <= mid)
+			insert(2 * node, l, mid, from, to, u, v);
+		if (to > mid)
+			insert(2 * node + 1, mid + 1, r, from, to, u, v);
+	}
+
+	private void traverse(int node, int l, int r, int windows) {
+		if (l >= windows)
+			return;
+		int mark = historySize;
+		for (int op = head[node]; op >= 0; op = opNext[op])
+			union(opSource[op], opTarget[op]);
+		if (l == r)
+			label(l);
+		else {
+			int mid = (l + r) >>> 1;
+			traverse(2 * node, l, mid, windows);
+			traverse(2 * node + 1, mid + 1, r, windows);
+		}
+		rollback(mark);
+	}
+
+	/*
+	 * Updates the value intervals of the nodes of the components that contain
+	 * an event of the window. If the component of a node differs from the
+	 * previous window, a path in one of the two windows crosses an edge that
+	 * appears or disappears, and an endpoint of that edge is in the component
+	 * of the node in this window.
+	 */
+	private void label(int window) {
+		double time = eventTimes[window];
+		for (int e = eventOffsets[window]; e < eventOffsets[window + 1]; e++) {
+			int v = eventNodes[e];
+			if (!isPresent(v, window)) {
+				if (runOpen[v])
+					closeRun(v, time);
+				continue;
+			}
+			int root = find(v);
+			if (visited[root] == window)
+				continue;
+			visited[root] = window;
+			int u = root;
+			do {
+				relabel(u, root, time);
+				u = next[u];
+			} while (u != root);
+		}
+	}
+
+	private void relabel(int v, int root, double time) {
+		if (runOpen[v]
+				&& (runComponent[v] != minSuid[root] || runSize[v] != size[root]))
+			closeRun(v, time);
+		if (!runOpen[v]) {
+			runOpen[v] = true;
+			runStart[v] = time;
+			runComponent[v] = minSuid[root];
+			runSize[v] = size[root];
+		}
+	}
+
+	private void closeRun(int v, double time) {
+		long suid = nodes[v].getSUID();
+		componentSeries.add(suid, runComponent[v], runStart[v], time);
+		sizeSeries.add(suid, runSize[v], runStart[v], time);
+		runOpen[v] = false;
+	}
+
+	private int find(int v) {
+		while (parent[v] != v)
+			v = parent[v];
+		return v;
+	}
+
+	private void union(int u, int v) {
+		int a = find(u), b = find(v);
+		if (historySize == history.length) {
+			history = Arrays.copyOf(history, 2 * historySize);
+			historyMin = Arrays.copyOf(historyMin, 2 * historySize);
+		}
+		if (a == b) {
+			history[historySize++] = -1;
+			return;
+		}
+		if (size[a] < size[b]) {
+			int tmp = a;
+			a = b;
+			b = tmp;
+		}
+		history[historySize] = b;
+		historyMin[historySize++] = minSuid[a];
+		parent[b] = a;
+		size[a] += size[b];
+		minSuid[a] = Math.min(minSuid[a], minSuid[b]);
+		splice(a, b);
+	}
+
+	// joins two member lists, or splits them again if applied twice
+	private void splice(int a, int b) {
+		int tmp = next[a];
+		next[a] = next[b];
+		next[b] = tmp;
+	}
+
+	private void rollback(int mark) {
+		while (historySize > mark) {
+			int b = history[--historySize];
+			if (b < 0)
+				continue;
+			int a = parent[b];
+			size[a] -= size[b];
+			minSuid[a] = historyMin[historySize];
+			splice(a, b);
+			parent[b] = b;
+		}
+	}
+
+	private int getIndex(CyNode node) {
+		Integer index = nodeIndex.get(node);
+		if (index != null)
+			return index;
+		if (nodeCount == nodes.length)
+			nodes = Arrays.copyOf(nodes, 2 * nodeCount);
+		nodes[nodeCount] = node;
+		nodeIndex.put(node, nodeCount);
+		return nodeCount++;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <code>WindowMetric</code> is a metric calculator that is fed the time
+ * windows of a dynamic network in order by {@link DynamicMetricsPipeline}.
+ * Calculators of the same pipeline run concurrently, but each one sees its
+ * windows one at a time from a single thread. When the windows themselves are
+ * computed in parallel, each worker gets its own copy of the calculator. The
+ * values may depend on the nodes and edges of a window only: the pipeline does
+ * not compute windows that have the same structure as the window before, but
+ * extends the previous values over them.
+ * 
+ * @author Jimmy
+ * 
+ * @param <T>
+ */
+public interface WindowMetric<T> {
+
+	/**
+	 * @return title shown in the task monitor
+	 */
+	public String getTitle();
+
+	/**
+	 * @return true if the metric reads the directed adjacency of the windows
+	 */
+	public boolean isDirected();
+
+	/**
+	 * @return a calculator with the same settings and none of the state carried
+	 *         over from window to window
+	 */
+	public WindowMetric<T> copy();
+
+	/**
+	 * Called once before the first window.
+	 * 
+	 * @param executor
+	 *            pool shared by all calculators of the pipeline, or null to
+	 *            run in the calling thread
+	 * @param parallelism
+	 *            number of threads of the pool
+	 */
+	public void initialize(ExecutorService executor, int parallelism);
+
+	/**
+	 * Compute the metric on one window and put its node values in the result.
+	 * 
+	 * @param window
+	 * @param result
+	 * @throws Exception
+	 */
+	public void compute(MetricWindow<T> window, WindowResult result)
+			throws Exception;
+}
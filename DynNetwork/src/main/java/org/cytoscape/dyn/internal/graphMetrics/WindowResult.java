@@ -0,0 +1,102 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.dyn.internal.model.DynNetwork;
+
+/**
+ * <code>WindowResult</code> collects the node values that one calculator
+ * computed for one time window, so that {@link DynamicMetricsPipeline} can
+ * write them to the network from a single thread. When the following windows
+ * have the same structure the result is extended over them, and the values
+ * are written once for the whole time range.
+ * 
+ * @author Jimmy
+ * 
+ */
+public final class WindowResult {
+
+	private final int window;
+	private int lastWindow;
+	private final double start;
+	private double end;
+	private final List<String> columns;
+	private final List<long[]> suids;
+	private final List<double[]> values;
+	private Throwable failure;
+
+	WindowResult(int window, double start, double end) {
+		this.window = window;
+		this.lastWindow = window;
+		this.start = start;
+		this.end = end;
+		this.columns = new ArrayList<String>();
+		this.suids = new ArrayList<long[]>();
+		this.values = new ArrayList<double[]>();
+	}
+
+	/**
+	 * Add the values of a node attribute for this window.
+	 * 
+	 * @param column
+	 * @param suids
+	 * @param values
+	 */
+	public void put(String column, long[] suids, double[] values) {
+		this.columns.add(column);
+		this.suids.add(suids);
+		this.values.add(values);
+	}
+
+	int getWindow() {
+		return window;
+	}
+
+	int getLastWindow() {
+		return lastWindow;
+	}
+
+	/**
+	 * Extend the result over the next window.
+	 * 
+	 * @param window
+	 * @param end
+	 */
+	void extend(int window, double end) {
+		this.lastWindow = window;
+		this.end = end;
+	}
+
+	Throwable getFailure() {
+		return failure;
+	}
+
+	void setFailure(Throwable failure) {
+		this.failure = failure;
+	}
+
+	<T> void writeTo(DynNetwork<T> network) {
+		for (int i = 0; i < columns.size(); i++)
+			network.writeNodeSeries(columns.get(i), suids.get(i),
+					values.get(i), start, end);
+	}
+}
@@ -29,8 +29,9 @@ import org.cytoscape.dyn.internal.io.read.util.KeyPairs;
 import org.cytoscape.dyn.internal.model.attribute.AbstractDynAttributeCheck;
 import org.cytoscape.dyn.internal.model.attribute.DynAttribute;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalArrayTreeImpl;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalTree;
-import org.cytoscape.dyn.internal.model.tree.DynIntervalTreeImpl;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
@@ -40,7 +41,8 @@ import org.cytoscape.view.presentation.property.BasicVisualLexicon;
  * and provides method to store dynamic visualization information in the form of 
  * intervals {@link DynInterval} stored in the interval tree {@link DynIntervalTree}.
  * For each node we store a series of intervals corresponding to its x and y
- * positions in time. The interval tree guarantees that the write and read operation
+ * positions in time. Positions are written once and then searched at every frame, so
+ * they are kept in the compact array tree {@link DynIntervalArrayTreeImpl}. The interval tree guarantees that the write and read operation
  * to update the visualization are minimal and asynchronous.
  * 
  * @author Sabina Sara Pfister
@@ -51,11 +53,11 @@ public final class DynLayoutImpl<T> extends AbstractDynAttributeCheck<T> impleme
 {
 	private final CyNetworkView view;
 	
-	private List<DynInterval<T>> currentNodesX;
-	private List<DynInterval<T>> currentNodesY;
+	private final TimelineCursor<T> currentNodesX;
+	private final TimelineCursor<T> currentNodesY;
 	
-	private final DynIntervalTreeImpl<T> nodeXPositionsTree;
-	private final DynIntervalTreeImpl<T> nodeYPositionsTree;
+	private final DynIntervalTree<T> nodeXPositionsTree;
+	private final DynIntervalTree<T> nodeYPositionsTree;
 	
 	private final Map<KeyPairs,DynAttribute<T>> node_X_Pos;
 	private final Map<KeyPairs,DynAttribute<T>> node_Y_Pos;
@@ -70,11 +72,11 @@ public final class DynLayoutImpl<T> extends AbstractDynAttributeCheck<T> impleme
 	{
 		this.view = view;
 
-		this.currentNodesX = new ArrayList<DynInterval<T>>();
-		this.currentNodesY = new ArrayList<DynInterval<T>>();
+		this.nodeXPositionsTree = new DynIntervalArrayTreeImpl<T>();
+		this.nodeYPositionsTree = new DynIntervalArrayTreeImpl<T>();
 		
-		this.nodeXPositionsTree = new DynIntervalTreeImpl<T>();
-		this.nodeYPositionsTree = new DynIntervalTreeImpl<T>();
+		this.currentNodesX = new TimelineCursor<T>(nodeXPositionsTree);
+		this.currentNodesY = new TimelineCursor<T>(nodeYPositionsTree);
 
 		this.node_X_Pos = new HashMap<KeyPairs,DynAttribute<T>>();
 		this.node_Y_Pos = new HashMap<KeyPairs,DynAttribute<T>>();
@@ -137,10 +139,7 @@ public final class DynLayoutImpl<T> extends AbstractDynAttributeCheck<T> impleme
 	{
 		if (!node_X_Pos.isEmpty())
 		{
-			List<DynInterval<T>> tempList = nodeXPositionsTree.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentNodesX, tempList);
-			currentNodesX = tempList;
-			return changedList;
+			return currentNodesX.searchChanged(interval);
 		}
 		return this.emptyList;
 	}
@@ -150,10 +149,7 @@ public final class DynLayoutImpl<T> extends AbstractDynAttributeCheck<T> impleme
 	{
 		if (!node_Y_Pos.isEmpty())
 		{
-			List<DynInterval<T>> tempList = nodeYPositionsTree.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentNodesY, tempList);
-			currentNodesY = tempList;
-			return changedList;
+			return currentNodesY.searchChanged(interval);
 		}
 		return this.emptyList;
 	}
@@ -179,13 +175,15 @@ public final class DynLayoutImpl<T> extends AbstractDynAttributeCheck<T> impleme
 	@Override
 	public void finalize() 
 	{
+		List<DynInterval<T>> xList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : node_X_Pos.values())
-			for (DynInterval<T> interval : attr.getIntervalList())
-				nodeXPositionsTree.insert(interval, attr.getRow());	
+			xList.addAll(attr.getIntervalList());
+		nodeXPositionsTree.insertAll(xList);
 
+		List<DynInterval<T>> yList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : node_Y_Pos.values())
-			for (DynInterval<T> interval : attr.getIntervalList())
-				nodeYPositionsTree.insert(interval, attr.getRow());
+			yList.addAll(attr.getIntervalList());
+		nodeYPositionsTree.insertAll(yList);
 	}
 	
 	@Override
@@ -213,22 +211,4 @@ public final class DynLayoutImpl<T> extends AbstractDynAttributeCheck<T> impleme
 
 	}
 	
-	private List<DynInterval<T>> nonOverlap(List<DynInterval<T>> list1, List<DynInterval<T>> list2) 
-	{
-		List<DynInterval<T>> diff = new ArrayList<DynInterval<T>>();
-		for (DynInterval<T> i : list1)
-			if (!list2.contains(i))
-			{
-				diff.add(i);
-				i.setOn(false);
-			}
-		for (DynInterval<T> i : list2)
-			if (!list1.contains(i))
-			{
-				diff.add(i);
-				i.setOn(true);
-			}
-		return diff;
-	}
-	
 }
@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.cytoscape.dyn.internal.layout.standard.distance.Distance;
 import org.cytoscape.dyn.internal.layout.standard.force.DragForce;
@@ -43,6 +44,7 @@ import org.cytoscape.dyn.internal.layout.standard.force.Force;
 import org.cytoscape.dyn.internal.layout.standard.force.ForceItem;
 import org.cytoscape.dyn.internal.layout.standard.force.ForceSimulator;
 import org.cytoscape.dyn.internal.layout.standard.force.NBodyForce;
+import org.cytoscape.dyn.internal.layout.standard.force.ParallelNBodyForce;
 import org.cytoscape.dyn.internal.layout.standard.force.Spring;
 import org.cytoscape.dyn.internal.layout.standard.force.SpringForce;
 import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot;
@@ -61,11 +63,15 @@ import org.cytoscape.model.CyNode;
 public class ForceDirectedLayout<T> extends AbstractLayout<T>
 {
 	private ForceSimulator m_fsim;
+	private Force nbodyForce;
 	private Map<CyNode,ForceItem> forceItems;
 	private Map<CyEdge,Spring> springItems;
 	private List<CyNode> nodeList;
 	private List<CyEdge> edgeList;
 	
+	private ExecutorService executor;
+	private int parallelism = 1;
+	
 	private long timestep;
 	private int currentIteration;
 	
@@ -95,10 +101,7 @@ public class ForceDirectedLayout<T> extends AbstractLayout<T>
 	public ForceDirectedLayout(DynNetworkSnapshot<T> g, Dimension size) 
     {
 		super(g,size);
-		m_fsim = new ForceSimulator();
-		m_fsim.addForce((Force)new NBodyForce());
-		m_fsim.addForce((Force)new SpringForce());
-		m_fsim.addForce((Force)new DragForce());
+		m_fsim = createSimulator();
 		
 		forceItems = new HashMap<CyNode, ForceItem>();
 		springItems = new HashMap<CyEdge, Spring>(); 
@@ -109,6 +112,20 @@ public class ForceDirectedLayout<T> extends AbstractLayout<T>
 		timestep = 1000L;
 	}
 
+	/**
+	 * Set the executor used to compute the n-body force of graphs with at least 
+	 * {@link ParallelNBodyForce#PARALLEL_THRESHOLD} nodes. Smaller graphs keep the 
+	 * serial {@link NBodyForce}. The force is chosen when the layout is initialized.
+	 * @param executor - executor, or null to run in the calling thread
+	 * @param parallelism - number of threads of the executor
+	 */
+	public void setExecutor(ExecutorService executor, int parallelism) 
+	{
+		this.executor = executor;
+		this.parallelism = Math.max(1, parallelism);
+		setParallelForce(false);
+	}
+
 	/**
 	 * Set spring coefficient.
 	 * @param defaultSpringCoefficient
@@ -176,6 +193,9 @@ public class ForceDirectedLayout<T> extends AbstractLayout<T>
 		
 		currentIteration = 0;
 		
+		// below the threshold the parallel force would run in one thread, so NBodyForce is kept
+		setParallelForce(executor!=null && graph.getNodeCount()>=ParallelNBodyForce.PARALLEL_THRESHOLD);
+		
 		// remove nodes
 		for (CyNode ln : nodeList)
 			if (!graph.conatinsNode(ln))
@@ -244,12 +264,29 @@ public class ForceDirectedLayout<T> extends AbstractLayout<T>
 	@Override
 	public void reset() 
 	{
-		m_fsim = new ForceSimulator();
-		m_fsim.addForce((Force) new NBodyForce());
-		m_fsim.addForce((Force) new SpringForce());
-		m_fsim.addForce((Force) new DragForce());
+		m_fsim = createSimulator();
 		forceItems.clear();
 	}
+	
+	private ForceSimulator createSimulator()
+	{
+		ForceSimulator fsim = new ForceSimulator();
+		nbodyForce = new NBodyForce();
+		fsim.addForce(nbodyForce);
+		fsim.addForce((Force) new SpringForce());
+		fsim.addForce((Force) new DragForce());
+		return fsim;
+	}
+	
+	// Switch between the serial and the parallel n-body force
+	private void setParallelForce(boolean parallel)
+	{
+		if (parallel == (nbodyForce instanceof ParallelNBodyForce))
+			return;
+		Force force = parallel ? new ParallelNBodyForce(executor,parallelism) : new NBodyForce();
+		m_fsim.replaceForce(nbodyForce, force);
+		nbodyForce = force;
+	}
 
 	@Override
 	public void setDistance(Distance<T> distance) {}
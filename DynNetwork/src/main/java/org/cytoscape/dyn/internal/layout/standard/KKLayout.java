@@ -33,14 +33,31 @@ package org.cytoscape.dyn.internal.layout.standard;
 
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.cytoscape.dyn.internal.layout.standard.distance.Distance;
 import org.cytoscape.dyn.internal.layout.standard.distance.DistanceStatistics;
+import org.cytoscape.dyn.internal.layout.standard.distance.IncrementalShortestPaths;
 import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot;
 import org.cytoscape.model.CyNode;
 
 /**
  * <code> KKLayout </code> implements the Kamada-Kawai algorithm for node layout.
+ * Positions are kept in primitive coordinate arrays during the minimization and copied 
+ * back to the node locations after each step. The search for the vertex with the largest 
+ * gradient can be split in chunks that run on an executor; the chunk maxima are reduced 
+ * in vertex order, so the layout is the same as with a single thread. When the layout is 
+ * stuck in a local minimum, at most a budget of vertex pairs is tested for an exchange of 
+ * positions at each step, starting where the previous test stopped. The energy change of an 
+ * exchange is computed from the terms of the two vertices only. The distance matrix is 
+ * symmetric and kept as a triangle of floats, reused by the next initialization. With an 
+ * {@link IncrementalShortestPaths} distance, the matrix and the diameter are read from 
+ * the maintained distances instead of being searched again or copied.
  * 
  * @see "Tomihisa Kamada and Satoru Kawai: An algorithm for drawing general indirect graphs. Information Processing Letters 31(1):7-15, 1989" 
  * @see "Tomihisa Kamada: On visualization of abstract objects and relations. Ph.D. dissertation, Dept. of Information Science, Univ. of Tokyo, Dec. 1988."
@@ -54,8 +71,28 @@ public final class KKLayout<T> extends AbstractLayout<T>
 {
 	private String status = "KKLayout";
 	
+	// below this number of vertices the gradient scan runs in the calling thread
+	private static final int PARALLEL_THRESHOLD = 256;
+	
 	private CyNode[] vertices;
-	private Point2D[] xydata;
+	private Point2D[] points;
+	private double[] x;
+	private double[] y;
+	private boolean[] locked;
+	
+	// Newton step computed by calcDeltaXY
+	private double deltaX;
+	private double deltaY;
+	
+	private ExecutorService executor;
+	private GradientScan[] scans;
+	private ExchangeScan[] exchangeScans;
+	
+	// number of vertex pairs tested for an exchange in one step (0 for the number of vertices)
+	private int exchangeBudget = 0;
+	
+	// next vertex pair to test for an exchange, as index in the list of pairs i<j
+	private long exchangeCursor;
 	
 	private int currentIteration;
 	
@@ -71,8 +108,14 @@ public final class KKLayout<T> extends AbstractLayout<T>
 	// arbitrary constant number
 	private double K = 1;		
 	
-	// distance matrix
-	private double[][] dm;      
+	// distance matrix, upper triangle by rows: (i,j) with i<j at dmOffset[i]+j
+	private float[] dm;
+	private int[] dmOffset;
+	
+	// maintained distances used instead of the matrix, by slot of the vertices
+	private IncrementalShortestPaths<T> paths;
+	private int[] pathSlot;
+	private float maxDistance;
 
 	// center graph on center of gravity
 	private boolean adjustForGravity = true;
@@ -125,11 +168,30 @@ public final class KKLayout<T> extends AbstractLayout<T>
         this.disconnected_multiplier = disconnected_multiplier;
     }
     
+    /**
+     * Set the executor used to search the vertex with the largest gradient.
+     * @param executor - executor, or null to run in the calling thread
+     * @param parallelism - number of threads of the executor
+     */
+    public void setExecutor(ExecutorService executor, int parallelism)
+    {
+    	this.executor = executor;
+    	this.scans = new GradientScan[Math.max(1, parallelism)];
+    	this.exchangeScans = new ExchangeScan[scans.length];
+    	for (int i = 0; i < scans.length; i++)
+    	{
+    		scans[i] = new GradientScan(this);
+    		exchangeScans[i] = new ExchangeScan(this);
+    	}
+    }
+    
     /**
      * Returns a string with information about the current status of the algorithm.
      */
 	public String getStatus() 
 	{
+		if (vertices != null && vertices.length > 0)
+			return status + " E=" + calcEnergy();
 		return status + this.getSize();
 	}
 
@@ -159,6 +221,15 @@ public final class KKLayout<T> extends AbstractLayout<T>
 		exchangeVertices = on;
 	}
 	
+	/**
+	 * Set the number of vertex pairs tested for an exchange in one step.
+	 * @param budget - number of pairs, or 0 for the number of vertices
+	 */
+	public void setExchangeBudget(int budget) 
+	{
+		exchangeBudget = Math.max(0, budget);
+	}
+	
 	/**
 	 * Set autoscaling method.
 	 * @param on
@@ -196,6 +267,7 @@ public final class KKLayout<T> extends AbstractLayout<T>
 		this.distance = distance;
     }
 
+	@SuppressWarnings("unchecked")
 	@Override
     public void initialize() 
     {
@@ -209,39 +281,67 @@ public final class KKLayout<T> extends AbstractLayout<T>
     		double width = size.getWidth();
 
     		int n = graph.getNodeCount();
-    		dm = new double[n][n];
     		vertices = (CyNode[])graph.getNodes().toArray(new CyNode[graph.getNodes().size()]);
-    		xydata = new Point2D[n];
+    		points = new Point2D[n];
+    		x = new double[n];
+    		y = new double[n];
+    		locked = new boolean[n];
+    		exchangeCursor = 0;
 
     		int index = 0;
 			for(CyNode node : graph.getNodes()) 
 			{
 				Point2D xyd = transform(node);
 				vertices[index] = node;
-				xydata[index] = xyd;
+				points[index] = xyd;
+				x[index] = xyd.getX();
+				y[index] = xyd.getY();
+				locked[index] = isLocked(node);
 				index++;
 			}
 
+			paths = null;
+			if (distance instanceof IncrementalShortestPaths)
+				paths = (IncrementalShortestPaths<T>) distance;
+
 			if (diameter==0 || this.autoscaling)
-				diameter = DistanceStatistics.diameter(graph, distance, true);
+				diameter = paths != null ? paths.getDiameter() : DistanceStatistics.diameter(graph, distance, true);
 
     		double L0 = Math.min(height, width);
     		L = (L0 / diameter) * length_factor;
 
-    		for (int i = 0; i < n - 1; i++) 
+    		if (paths != null)
+    		{
+    			// read the maintained distances in place
+    			dm = null;
+    			dmOffset = null;
+    			pathSlot = new int[n];
+    			for (int i = 0; i < n; i++)
+    				pathSlot[i] = paths.getSlot(vertices[i]);
+    			maxDistance = (float) (diameter * disconnected_multiplier);
+    		}
+    		else
     		{
-    			for (int j = i + 1; j < n; j++) 
+    			if (dm == null || dm.length < (long) n * (n - 1) / 2)
+    				dm = new float[(int) ((long) n * (n - 1) / 2)];
+    			dmOffset = new int[n];
+    			for (int i = 0; i < n; i++)
+    				dmOffset[i] = (int) ((long) i * (2 * n - i - 1) / 2) - i - 1;
+    			for (int i = 0; i < n - 1; i++) 
     			{
-    				Number d_ij = distance.getDistance(vertices[i], vertices[j]);
-    				Number d_ji = distance.getDistance(vertices[j], vertices[i]);
-    				double dist = diameter * disconnected_multiplier;
-    				if (d_ij != null)
-    					dist = Math.min(d_ij.doubleValue(), dist);
-    				if (d_ji != null)
-    					dist = Math.min(d_ji.doubleValue(), dist);
-//    				if (dist==0)
-//    					dist = 0.00001;
-    				dm[i][j] = dm[j][i] = dist;
+    				for (int j = i + 1; j < n; j++) 
+    				{
+    					Number d_ij = distance.getDistance(vertices[i], vertices[j]);
+    					Number d_ji = distance.getDistance(vertices[j], vertices[i]);
+    					double dist = diameter * disconnected_multiplier;
+    					if (d_ij != null)
+    						dist = Math.min(d_ij.doubleValue(), dist);
+    					if (d_ji != null)
+    						dist = Math.min(d_ji.doubleValue(), dist);
+//    					if (dist==0)
+//    						dist = 0.00001;
+    					dm[dmOffset[i] + j] = (float) dist;
+    				}
     			}
     		}
     	}
@@ -252,38 +352,26 @@ public final class KKLayout<T> extends AbstractLayout<T>
 	{
 		try {
 			currentIteration++;
-			double energy = calcEnergy();
 			status = "Kamada-Kawai V=" + getGraph().getNodeCount()
 			+ "(" + getGraph().getNodeCount() + ")"
 			+ " IT: " + currentIteration
-			+ " E=" + energy
 			;
 
 			int n = graph.getNodeCount();
 			if (n == 0)
 				return;
 
-			double maxDeltaM = 0;
-			int pm = -1;            
-			for (int i = 0; i < n; i++) 
-			{
-				if (isLocked(vertices[i]))
-					continue;
-				double deltam = calcDeltaM(i);
-
-				if (maxDeltaM < deltam) 
-				{
-					maxDeltaM = deltam;
-					pm = i;
-				}
-			}
+			GradientScan max = findMaxDeltaM();
+			double maxDeltaM = max.maxDeltaM;
+			int pm = max.pm;
 			if (pm == -1)
 				return;
 
 			for (int i = 0; i < 100; i++) 
 			{
-				double[] dxy = calcDeltaXY(pm);
-				xydata[pm].setLocation(xydata[pm].getX()+dxy[0], xydata[pm].getY()+dxy[1]);
+				calcDeltaXY(pm);
+				x[pm] += deltaX;
+				y[pm] += deltaY;
 
 				double deltam = calcDeltaM(pm);
 				if (deltam < EPSILON)
@@ -293,30 +381,254 @@ public final class KKLayout<T> extends AbstractLayout<T>
 			if (adjustForGravity)
 				adjustForGravity();
 
-			if (exchangeVertices && maxDeltaM < EPSILON) 
+			if (exchangeVertices && maxDeltaM < EPSILON && n > 1) 
+			{
+				ExchangeScan exchange = findExchange();
+				if (exchange.p != -1)
+				{
+					int i = exchange.p;
+					int j = exchange.q;
+					double sx = x[i];
+					double sy = y[i];
+					x[i] = x[j];
+					y[i] = y[j];
+					x[j] = sx;
+					y[j] = sy;
+				}
+			}
+		}
+		finally {
+			storeLocations();
+		}
+	}
+	
+	// Copy the coordinates back to the node locations.
+	private void storeLocations()
+	{
+		if (points == null)
+			return;
+		for (int i = 0; i < points.length; i++)
+			points[i].setLocation(x[i], y[i]);
+	}
+	
+	// Find the unlocked vertex with the largest gradient, the first one in vertex order
+	// if several have the same.
+	private GradientScan findMaxDeltaM()
+	{
+		int n = vertices.length;
+		if (executor == null || scans.length < 2 || n < PARALLEL_THRESHOLD)
+		{
+			if (scans == null)
+				setExecutor(null, 1);
+			return scans[0].set(0, n).call();
+		}
+		
+		List<Future<GradientScan>> futures = new ArrayList<Future<GradientScan>>(scans.length);
+		for (int c = 0; c < scans.length; c++)
+			futures.add(executor.submit(scans[c].set(
+					(int) ((long) c * n / scans.length), (int) ((long) (c + 1) * n / scans.length))));
+		
+		GradientScan max = null;
+		try {
+			for (Future<GradientScan> future : futures)
 			{
-				energy = calcEnergy();
-				for (int i = 0; i < n - 1; i++) 
+				GradientScan scan = future.get();
+				if (max == null || max.maxDeltaM < scan.maxDeltaM)
+					max = scan;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			for (Future<GradientScan> future : futures)
+				future.cancel(true);
+		}
+		return max;
+	}
+	
+	// Test the next budget of vertex pairs and return the first one whose exchange
+	// lowers the energy, continuing from the following pair at the next call.
+	private ExchangeScan findExchange()
+	{
+		int n = vertices.length;
+		long pairs = (long) n * (n - 1) / 2;
+		long budget = Math.min(pairs, exchangeBudget > 0 ? exchangeBudget : n);
+		if (scans == null)
+			setExecutor(null, 1);
+		
+		ExchangeScan found = null;
+		long tested = budget;
+		if (executor == null || exchangeScans.length < 2 || n < PARALLEL_THRESHOLD)
+		{
+			found = exchangeScans[0].set(exchangeCursor, budget, pairs).call();
+			tested = found.tested;
+		}
+		else
+		{
+			int chunks = exchangeScans.length;
+			List<Future<ExchangeScan>> futures = new ArrayList<Future<ExchangeScan>>(chunks);
+			long offset = 0;
+			for (int c = 0; c < chunks; c++)
+			{
+				long count = (c + 1) * budget / chunks - c * budget / chunks;
+				futures.add(executor.submit(exchangeScans[c].set((exchangeCursor + offset) % pairs, count, pairs)));
+				offset += count;
+			}
+			
+			// the first chunk with an improving pair holds the first one in pair order
+			offset = 0;
+			try {
+				for (Future<ExchangeScan> future : futures)
 				{
-					if (isLocked(vertices[i]))
-						continue;
-					for (int j = i + 1; j < n; j++) 
+					ExchangeScan scan = future.get();
+					if (scan.p != -1)
 					{
-						if (isLocked(vertices[j]))
-							continue;
-						double xenergy = calcEnergyIfExchanged(i, j);
-						if (energy > xenergy) {
-							double sx = xydata[i].getX();
-							double sy = xydata[i].getY();
-							xydata[i].setLocation(xydata[j]);
-							xydata[j].setLocation(sx, sy);
-							return;
-						}
+						found = scan;
+						tested = offset + scan.tested;
+						break;
 					}
+					offset += scan.tested;
 				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			} finally {
+				for (Future<ExchangeScan> future : futures)
+					future.cancel(true);
 			}
+			if (found == null)
+				found = exchangeScans[0];
 		}
-		finally {
+		
+		exchangeCursor = (exchangeCursor + tested) % pairs;
+		return found;
+	}
+	
+	// Returns the pair i<j at the given index of the list (0,1),(0,2),...,(1,2),...
+	private static void pairAt(long index, int n, int[] pair)
+	{
+		double b = 2.0 * n - 1;
+		int i = (int) Math.floor((b - Math.sqrt(b * b - 8.0 * index)) / 2);
+		i = Math.max(0, Math.min(n - 2, i));
+		while (i > 0 && pairOffset(i, n) > index)
+			i--;
+		while (i < n - 2 && pairOffset(i + 1, n) <= index)
+			i++;
+		pair[0] = i;
+		pair[1] = (int) (index - pairOffset(i, n)) + i + 1;
+	}
+	
+	// Index of the pair (i,i+1) in the list of pairs.
+	private static long pairOffset(int i, int n)
+	{
+		return (long) i * (2L * n - i - 1) / 2;
+	}
+	
+	/**
+	 * <code> ExchangeScan </code> looks for the first pair of vertices in a range of pairs
+	 * whose exchange lowers the energy.
+	 */
+	private static final class ExchangeScan implements Callable<ExchangeScan>
+	{
+		private final KKLayout<?> kk;
+		private final int[] pair = new int[2];
+		private long from;
+		private long count;
+		private long pairs;
+		private long tested;
+		private int p;
+		private int q;
+		
+		private ExchangeScan(KKLayout<?> kk)
+		{
+			this.kk = kk;
+		}
+		
+		private ExchangeScan set(long from, long count, long pairs)
+		{
+			this.from = from;
+			this.count = count;
+			this.pairs = pairs;
+			return this;
+		}
+		
+		@Override
+		public ExchangeScan call()
+		{
+			int n = kk.vertices.length;
+			p = -1;
+			q = -1;
+			tested = 0;
+			if (count == 0)
+				return this;
+			
+			pairAt(from, n, pair);
+			int i = pair[0];
+			int j = pair[1];
+			while (tested < count)
+			{
+				tested++;
+				if (!kk.locked[i] && !kk.locked[j] && kk.calcExchangeDelta(i, j) < 0)
+				{
+					p = i;
+					q = j;
+					return this;
+				}
+				if (++j == n)
+				{
+					i = i + 1 < n - 1 ? i + 1 : 0;
+					j = i + 1;
+				}
+			}
+			return this;
+		}
+	}
+	
+	/**
+	 * <code> GradientScan </code> computes the largest gradient in a range of vertices.
+	 */
+	private static final class GradientScan implements Callable<GradientScan>
+	{
+		private final KKLayout<?> kk;
+		private int from;
+		private int to;
+		private double maxDeltaM;
+		private int pm;
+		
+		private GradientScan(KKLayout<?> kk)
+		{
+			this.kk = kk;
+		}
+		
+		private GradientScan set(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+			return this;
+		}
+		
+		@Override
+		public GradientScan call()
+		{
+			maxDeltaM = 0;
+			pm = -1;
+			for (int i = from; i < to; i++) 
+			{
+				if (kk.locked[i])
+					continue;
+				double deltam = kk.calcDeltaM(i);
+
+				if (maxDeltaM < deltam) 
+				{
+					maxDeltaM = deltam;
+					pm = i;
+				}
+			}
+			return this;
 		}
 	}
 	
@@ -329,23 +641,26 @@ public final class KKLayout<T> extends AbstractLayout<T>
 //		double width = d.getWidth();
 		double gx = 0;
 		double gy = 0;
-		for (int i = 0; i < xydata.length; i++) 
+		for (int i = 0; i < x.length; i++) 
 		{
-			gx += xydata[i].getX();
-			gy += xydata[i].getY();
+			gx += x[i];
+			gy += y[i];
 		}
-		gx /= xydata.length;
-		gy /= xydata.length;
+		gx /= x.length;
+		gy /= x.length;
 //		double diffx = width / 2 - gx;
 //		double diffy = height / 2 - gy;
 		double diffx = 0 - gx;
 		double diffy = 0 - gy;
-		for (int i = 0; i < xydata.length; i++) 
-            xydata[i].setLocation(xydata[i].getX()+diffx, xydata[i].getY()+diffy);
+		for (int i = 0; i < x.length; i++) 
+		{
+			x[i] += diffx;
+			y[i] += diffy;
+		}
 	}
 
-	// Determines a step to new position of the vertex m.
-	private double[] calcDeltaXY(int m) 
+	// Determines a step to new position of the vertex m, stored in deltaX and deltaY.
+	private void calcDeltaXY(int m) 
 	{
 		double dE_dxm = 0;
 		double dE_dym = 0;
@@ -354,15 +669,17 @@ public final class KKLayout<T> extends AbstractLayout<T>
 		double d2E_dymdxm = 0;
 		double d2E_d2ym = 0;
 
+		double xm = x[m];
+		double ym = y[m];
 		for (int i = 0; i < vertices.length; i++) 
 		{
 			if (i != m) {
                 
-                double dist = dm[m][i];
+                double dist = getGraphDistance(m, i);
 				double l_mi = L * dist;
 				double k_mi = K / (dist * dist);
-				double dx = xydata[m].getX() - xydata[i].getX();
-				double dy = xydata[m].getY() - xydata[i].getY();
+				double dx = xm - x[i];
+				double dy = ym - y[i];
 				double d = Math.sqrt(dx * dx + dy * dy);
 				double ddd = d * d * d;
 				
@@ -378,9 +695,8 @@ public final class KKLayout<T> extends AbstractLayout<T>
 		d2E_dymdxm = d2E_dxmdym;
 
 		double denomi = d2E_d2xm * d2E_d2ym - d2E_dxmdym * d2E_dymdxm;
-		double deltaX = (d2E_dxmdym * dE_dym - d2E_d2ym * dE_dxm) / denomi;
-		double deltaY = (d2E_dymdxm * dE_dxm - d2E_d2xm * dE_dym) / denomi;
-		return new double[]{deltaX, deltaY};
+		deltaX = (d2E_dxmdym * dE_dym - d2E_d2ym * dE_dxm) / denomi;
+		deltaY = (d2E_dymdxm * dE_dxm - d2E_d2xm * dE_dym) / denomi;
 	}
 
 	// Calculates the gradient of energy function at the vertex m.
@@ -388,15 +704,17 @@ public final class KKLayout<T> extends AbstractLayout<T>
 	{
 		double dEdxm = 0;
 		double dEdym = 0;
+		double xm = x[m];
+		double ym = y[m];
 		for (int i = 0; i < vertices.length; i++) 
 		{
 			if (i != m) {
-                double dist = dm[m][i];
+                double dist = getGraphDistance(m, i);
 				double l_mi = L * dist;
 				double k_mi = K / (dist * dist);
 
-				double dx = xydata[m].getX() - xydata[i].getX();
-				double dy = xydata[m].getY() - xydata[i].getY();
+				double dx = xm - x[i];
+				double dy = ym - y[i];
 				double d = Math.sqrt(dx * dx + dy * dy);
 
 				double common = k_mi * (1 - l_mi / d);
@@ -415,11 +733,11 @@ public final class KKLayout<T> extends AbstractLayout<T>
 		{
 			for (int j = i + 1; j < vertices.length; j++) 
 			{
-                double dist = dm[i][j];
+                double dist = getGraphDistance(i, j);
 				double l_ij = L * dist;
 				double k_ij = K / (dist * dist);
-				double dx = xydata[i].getX() - xydata[j].getX();
-				double dy = xydata[i].getY() - xydata[j].getY();
+				double dx = x[i] - x[j];
+				double dy = y[i] - y[j];
 				double d = Math.sqrt(dx * dx + dy * dy);
 
 				energy += k_ij / 2 * (dx * dx + dy * dy + l_ij * l_ij -
@@ -429,34 +747,49 @@ public final class KKLayout<T> extends AbstractLayout<T>
 		return energy;
 	}
 
-	// Calculates the energy function E as if positions of the
-	// specified vertices are exchanged.
-	private double calcEnergyIfExchanged(int p, int q) 
+	// Returns the graph distance between the vertices i and j, i!=j.
+	private double getGraphDistance(int i, int j)
 	{
-		if (p >= q)
-			throw new RuntimeException("p should be < q");
-		double energy = 0;		// < 0
-		for (int i = 0; i < vertices.length - 1; i++) 
+		if (paths != null)
 		{
-			for (int j = i + 1; j < vertices.length; j++) 
-			{
-				int ii = i;
-				int jj = j;
-				if (i == p) ii = q;
-				if (j == q) jj = p;
+			if (pathSlot[i] < 0 || pathSlot[j] < 0)
+				return maxDistance;
+			return Math.min(maxDistance, paths.getSymmetricSlotDistance(pathSlot[i], pathSlot[j]));
+		}
+		return i < j ? dm[dmOffset[i] + j] : dm[dmOffset[j] + i];
+	}
 
-                double dist = dm[i][j];
-				double l_ij = L * dist;
-				double k_ij = K / (dist * dist);
-				double dx = xydata[ii].getX() - xydata[jj].getX();
-				double dy = xydata[ii].getY() - xydata[jj].getY();
-				double d = Math.sqrt(dx * dx + dy * dy);
-				
-				energy += k_ij / 2 * (dx * dx + dy * dy + l_ij * l_ij -
-									  2 * l_ij * d);
-			}
+	// Calculates the change of the energy function E if the positions of the
+	// vertices p and q are exchanged. Only the terms of p and q change, and the
+	// term between p and q keeps its value.
+	private double calcExchangeDelta(int p, int q) 
+	{
+		double xp = x[p];
+		double yp = y[p];
+		double xq = x[q];
+		double yq = y[q];
+		double delta = 0;
+		for (int i = 0; i < vertices.length; i++) 
+		{
+			if (i == p || i == q)
+				continue;
+			
+			double dpx = xp - x[i];
+			double dpy = yp - y[i];
+			double dqx = xq - x[i];
+			double dqy = yq - y[i];
+			double dp2 = dpx * dpx + dpy * dpy;
+			double dq2 = dqx * dqx + dqy * dqy;
+			double dp = Math.sqrt(dp2);
+			double dq = Math.sqrt(dq2);
+			
+			// p moves to the position of q and q to the position of p
+			double distp = getGraphDistance(p, i);
+			double distq = getGraphDistance(q, i);
+			delta += K / (distp * distp) / 2 * (dq2 - dp2 - 2 * L * distp * (dq - dp));
+			delta += K / (distq * distq) / 2 * (dp2 - dq2 - 2 * L * distq * (dp - dq));
 		}
-		return energy;
+		return delta;
 	}
 
 }
\ No newline at end of file
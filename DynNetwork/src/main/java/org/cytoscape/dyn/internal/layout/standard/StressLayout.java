@@ -0,0 +1,435 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.cytoscape.dyn.internal.layout.standard;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+import org.cytoscape.dyn.internal.layout.standard.distance.Distance;
+import org.cytoscape.dyn.internal.layout.standard.distance.SnapshotCSRDistance;
+import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot;
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+import org.cytoscape.model.CyNode;
+
+/**
+ * <code> StressLayout </code> implements sparse stress majorization for node layout. 
+ * Instead of the stress between all pairs of nodes, each node is only attracted to 
+ * its neighbors and to a small set of pivots, chosen by farthest first traversal. 
+ * The distances to the pivots are computed with one search per pivot, and the term 
+ * of a pivot is weighted by the number of nodes of its region it stands for. An 
+ * iteration moves every node to the weighted average of its targets in O(k*n+m) for 
+ * k pivots, and no distance matrix is needed, so the layout scales to large networks. 
+ * Nodes keep their positions between initializations, so that consecutive snapshots 
+ * start from the previous layout.
+ * 
+ * @see "Mark Ortmann, Mirza Klimenta and Ulrik Brandes: A Sparse Stress Model. Graph Drawing 2016, LNCS 9801:18-32"
+ * @see "Ulrik Brandes and Christian Pich: Eigensolver Methods for Progressive Multidimensional Scaling of Large Data. Graph Drawing 2006, LNCS 4372:42-53"
+ * 
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class StressLayout<T> extends AbstractLayout<T>
+{
+	private String status = "StressLayout";
+	
+	private SnapshotCSRDistance<T> distance;
+	private SnapshotCSR<T> csr;
+	
+	private CyNode[] vertices;
+	private Point2D[] points;
+	private double[] x;
+	private double[] y;
+	private boolean[] locked;
+	
+	// pivot nodes, distances and weights of the terms between pivots and nodes
+	private int[] pivots;
+	private double[][] pivotDistance;
+	private double[][] pivotWeight;
+	
+	private int currentIteration;
+	private boolean converged;
+	
+	// maximum number of iterations
+	private int maxIterations = 1000;
+	
+	// number of pivots
+	private int pivotCount = 50;
+	
+	// stop when the mean displacement is below this fraction of the edge length
+	private double epsilon = 0.01;
+	
+	// the ideal length of an edge
+	private double L;
+	
+	// the largest distance from a pivot
+	private double diameter;
+	
+	// A multiplicative factor which partly specifies the "preferred" length of an edge (L).
+	private double length_factor = 0.9;
+	
+	// A multiplicative factor which specifies the fraction of the graph's diameter to be 
+	// used as the inter-vertex distance between disconnected vertices.
+	private double disconnected_multiplier = 1;
+	
+	/**
+	 * <code> StressLayout </code> constructor.
+	 * @param g
+	 * @param size
+	 */
+	public StressLayout(DynNetworkSnapshot<T> g, Dimension size) 
+	{
+		super(g,size);
+	}
+	
+	/**
+	 * Sets a multiplicative factor which 
+	 * partly specifies the "preferred" length of an edge.
+	 */
+	public void setLengthFactor(double length_factor)
+	{
+		this.length_factor = length_factor;
+	}
+	
+	/**
+	 * Sets a multiplicative factor that specifies the fraction of the graph's diameter to be 
+	 * used as the inter-vertex distance between disconnected vertices.
+	 */
+	public void setDisconnectedDistanceMultiplier(double disconnected_multiplier)
+	{
+		this.disconnected_multiplier = disconnected_multiplier;
+	}
+	
+	/**
+	 * Sets the maximum number of iterations.
+	 */
+	public void setMaxIterations(int maxIterations) 
+	{
+		this.maxIterations = maxIterations;
+	}
+	
+	/**
+	 * Sets the number of pivots.
+	 * @param pivotCount
+	 */
+	public void setPivotCount(int pivotCount) 
+	{
+		this.pivotCount = Math.max(1, pivotCount);
+	}
+	
+	/**
+	 * Returns a string with information about the current status of the algorithm.
+	 */
+	public String getStatus() 
+	{
+		return status + this.getSize();
+	}
+	
+	/**
+	 * Sets the graph distance. It must be a {@link SnapshotCSRDistance}, whose graph 
+	 * gives the neighbors and whose searches give the pivot distances.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setDistance(Distance<T> distance) 
+	{
+		if (!(distance instanceof SnapshotCSRDistance))
+			throw new IllegalArgumentException("StressLayout requires a SnapshotCSRDistance");
+		this.distance = (SnapshotCSRDistance<T>) distance;
+	}
+	
+	@Override
+	public boolean done() 
+	{
+		return converged || currentIteration > maxIterations;
+	}
+	
+	@Override
+	public void reset() 
+	{
+		currentIteration = 0;
+		converged = false;
+	}
+	
+	@Override
+	public void print()
+	{
+		System.out.println("\nNODE LOCATIONS POSITIONS  ");
+		for (CyNode node : vertices)
+			System.out.println("  node : " + node.getSUID() + " " + 
+					this.locations.get(node).getX() + " : " + this.locations.get(node).getY());
+	}
+	
+	@Override
+	public void initialize() 
+	{
+		super.updateLocations();
+		
+		currentIteration = 0;
+		converged = false;
+		
+		if (graph != null && size != null && distance != null) 
+		{
+			csr = distance.getCSR();
+			int n = csr.getNodeCount();
+			vertices = new CyNode[n];
+			points = new Point2D[n];
+			x = new double[n];
+			y = new double[n];
+			locked = new boolean[n];
+			for (int i = 0; i < n; i++)
+			{
+				vertices[i] = csr.getNode(i);
+				points[i] = transform(vertices[i]);
+				x[i] = points[i].getX();
+				y[i] = points[i].getY();
+				locked[i] = isLocked(vertices[i]);
+			}
+			
+			int[] region = choosePivots(n);
+			
+			diameter = 0;
+			for (double[] row : pivotDistance)
+				for (double d : row)
+					if (!Double.isInfinite(d))
+						diameter = Math.max(diameter, d);
+			if (diameter == 0)
+				diameter = 1;
+			
+			L = (Math.min(size.getHeight(), size.getWidth()) / diameter) * length_factor;
+			
+			setPivotWeights(n, region);
+		}
+	}
+	
+	@Override
+	public void step() 
+	{
+		try {
+			currentIteration++;
+			status = "Stress V=" + vertices.length
+			+ " P=" + pivots.length
+			+ " IT: " + currentIteration
+			;
+			
+			int n = vertices.length;
+			if (n == 0)
+			{
+				converged = true;
+				return;
+			}
+			
+			int[] offsets = csr.getOffsets();
+			int[] targets = csr.getTargets();
+			double[] weights = csr.getWeights();
+			boolean weighted = csr.isWeighted();
+			
+			double moved = 0;
+			for (int i = 0; i < n; i++) 
+			{
+				if (locked[i])
+					continue;
+				
+				double xi = x[i];
+				double yi = y[i];
+				double sumW = 0;
+				double nx = 0;
+				double ny = 0;
+				
+				// neighbor terms
+				for (int k = offsets[i]; k < offsets[i + 1]; k++)
+				{
+					int j = targets[k];
+					double d = (weighted ? weights[k] : 1) * L;
+					if (j == i || d <= 0)
+						continue;
+					double w = 1 / (d * d);
+					double dx = xi - x[j];
+					double dy = yi - y[j];
+					double norm = Math.sqrt(dx * dx + dy * dy);
+					if (norm == 0)
+					{
+						// separate coincident nodes in a direction depending on the pair
+						dx = Math.cos(i - j);
+						dy = Math.sin(i - j);
+						norm = 1;
+					}
+					nx += w * (x[j] + d * dx / norm);
+					ny += w * (y[j] + d * dy / norm);
+					sumW += w;
+				}
+				
+				// pivot terms
+				for (int a = 0; a < pivots.length; a++)
+				{
+					double w = pivotWeight[a][i];
+					if (w == 0)
+						continue;
+					int p = pivots[a];
+					double d = pivotDistance[a][i] * L;
+					double dx = xi - x[p];
+					double dy = yi - y[p];
+					double norm = Math.sqrt(dx * dx + dy * dy);
+					if (norm == 0)
+					{
+						dx = Math.cos(i - p);
+						dy = Math.sin(i - p);
+						norm = 1;
+					}
+					nx += w * (x[p] + d * dx / norm);
+					ny += w * (y[p] + d * dy / norm);
+					sumW += w;
+				}
+				
+				if (sumW == 0)
+					continue;
+				
+				nx /= sumW;
+				ny /= sumW;
+				moved += Math.abs(nx - xi) + Math.abs(ny - yi);
+				x[i] = nx;
+				y[i] = ny;
+			}
+			
+			converged = moved / n < epsilon * L;
+		}
+		finally {
+			storeLocations();
+		}
+	}
+	
+	// Copy the coordinates back to the node locations.
+	private void storeLocations()
+	{
+		if (points == null)
+			return;
+		for (int i = 0; i < points.length; i++)
+			points[i].setLocation(x[i], y[i]);
+	}
+	
+	// Choose the pivots by farthest first traversal starting from the node of highest 
+	// degree, compute their distances and return the nearest pivot of each node.
+	private int[] choosePivots(int n)
+	{
+		int k = Math.min(pivotCount, n);
+		pivots = new int[k];
+		pivotDistance = new double[k][];
+		int[] region = new int[n];
+		double[] minDistance = new double[n];
+		Arrays.fill(minDistance, Double.POSITIVE_INFINITY);
+		int[] hops = new int[n];
+		
+		int next = 0;
+		for (int i = 1; i < n; i++)
+			if (csr.getDegree(i) > csr.getDegree(next))
+				next = i;
+		
+		for (int a = 0; a < k; a++)
+		{
+			pivots[a] = next;
+			double[] row = new double[n];
+			if (csr.isWeighted())
+				distance.dijkstra(next, row);
+			else
+			{
+				distance.bfs(next, hops);
+				for (int i = 0; i < n; i++)
+					row[i] = hops[i] < 0 ? Double.POSITIVE_INFINITY : hops[i];
+			}
+			pivotDistance[a] = row;
+			
+			// the next pivot is the farthest node from the chosen ones, which is
+			// a node of another component as long as there is one
+			next = -1;
+			for (int i = 0; i < n; i++)
+			{
+				if (row[i] < minDistance[i])
+				{
+					minDistance[i] = row[i];
+					region[i] = a;
+				}
+				if (next < 0 || minDistance[i] > minDistance[next])
+					next = i;
+			}
+			if (minDistance[next] == 0)
+			{
+				pivots = Arrays.copyOf(pivots, a + 1);
+				pivotDistance = Arrays.copyOf(pivotDistance, a + 1);
+				break;
+			}
+		}
+		return region;
+	}
+	
+	// The term between pivot p and node i stands for the nodes of the region of p which 
+	// are closer to p than to i, i.e. at distance at most d(p,i)/2 from p.
+	private void setPivotWeights(int n, int[] region)
+	{
+		int k = pivots.length;
+		double[][] regionDistance = new double[k][];
+		int[] count = new int[k];
+		for (int i = 0; i < n; i++)
+			count[region[i]]++;
+		for (int a = 0; a < k; a++)
+			regionDistance[a] = new double[count[a]];
+		Arrays.fill(count, 0);
+		for (int i = 0; i < n; i++)
+			regionDistance[region[i]][count[region[i]]++] = pivotDistance[region[i]][i];
+		for (int a = 0; a < k; a++)
+			Arrays.sort(regionDistance[a]);
+		
+		pivotWeight = new double[k][n];
+		for (int a = 0; a < k; a++)
+		{
+			for (int i = 0; i < n; i++)
+			{
+				double d = pivotDistance[a][i];
+				if (i == pivots[a] || d == 0)
+					continue;
+				double s = 1;
+				if (Double.isInfinite(d))
+					d = diameter * disconnected_multiplier;
+				else
+					s = Math.max(1, countAtMost(regionDistance[a], d / 2));
+				pivotDistance[a][i] = d;
+				pivotWeight[a][i] = s / (d * L * d * L);
+			}
+		}
+	}
+	
+	// Number of values of the sorted array that are at most the given value.
+	private static int countAtMost(double[] sorted, double value)
+	{
+		int lo = 0;
+		int hi = sorted.length;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] <= value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+}
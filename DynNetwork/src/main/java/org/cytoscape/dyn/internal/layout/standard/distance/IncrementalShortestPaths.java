@@ -0,0 +1,452 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.layout.standard.distance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+import org.cytoscape.model.CyNode;
+
+/**
+ * <code> IncrementalShortestPaths </code> maintains all pairs shortest path distances
+ * over a sequence of {@link SnapshotCSR} views of the same network, such as the event 
+ * windows of a dynamic layout. Every node keeps a slot across updates, and each slot owns 
+ * a float row with the distances to the lower slots, so that new slots never move the 
+ * stored distances. Undirected views are symmetric and only keep this lower triangle; 
+ * directed views, or a limited number of targets, also keep a row with the distances 
+ * from the lower slots. At each update the arcs are compared with the previous view: a 
+ * source is searched again only if a removed or longer arc lies on one of its shortest 
+ * paths, or if a new or shorter arc shortens one of them. The rows of the other sources 
+ * remain exact. With a limited number of targets a row holds the first nodes in search 
+ * order, which depends on all the arcs the search follows and on the order of ties, so 
+ * every source is searched again at each update. The diameter is kept from the 
+ * eccentricities of the sources. Instances are not thread safe.
+ * 
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class IncrementalShortestPaths<T> implements Distance<T>
+{
+	private static final float INF = Float.POSITIVE_INFINITY;
+	private static final float EPSILON = 1e-6f;
+	
+	private final int maxTargets;
+	
+	private final Map<CyNode,Integer> slots;
+	private final List<Integer> freeSlots;
+	private CyNode[] nodes;
+	private boolean[] active;
+	private float[] ecc;
+	private int size;
+	
+	// distance from slot s to slot t<s at lower[s][t], and from slot t<s to slot s 
+	// at upper[s][t]; without upper the distances are symmetric
+	private boolean symmetric;
+	private float[][] lower;
+	private float[][] upper;
+	
+	// arcs between slots of the previous view, sorted by source and target slot, 
+	// with the shortest weight of parallel arcs
+	private long[] arcs;
+	private double[] arcWeights;
+	
+	private double diameter;
+	private int updatedSources;
+
+	/**
+	 * <code> IncrementalShortestPaths </code> constructor.
+	 */
+	public IncrementalShortestPaths()
+	{
+		this(Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * <code> IncrementalShortestPaths </code> constructor. Only the <code>maxTargets</code>
+	 * nodes closest to each source (including the source) get a distance, as in 
+	 * {@link SnapshotCSRDistance}.
+	 * @param maxTargets
+	 */
+	public IncrementalShortestPaths(int maxTargets)
+	{
+		this.maxTargets = maxTargets;
+		this.slots = new HashMap<CyNode,Integer>();
+		this.freeSlots = new ArrayList<Integer>();
+		clear(true);
+	}
+	
+	/**
+	 * Update the distances to the given view.
+	 * @param csr
+	 */
+	public void update(SnapshotCSR<T> csr)
+	{
+		int n = csr.getNodeCount();
+		
+		// A limited search from one end of an undirected path may miss the other end
+		boolean symmetric = !csr.isDirected() && maxTargets==Integer.MAX_VALUE;
+		if (symmetric!=this.symmetric)
+			clear(symmetric);
+		
+		// Remove nodes that left, keeping their slots until the end of the update
+		// so that arcs of old and new nodes can not be confused.
+		List<Integer> removed = new ArrayList<Integer>();
+		for (int s=0;s<size;s++)
+			if (active[s] && csr.getIndex(nodes[s])<0)
+				removed.add(s);
+		
+		// Assign slots to the nodes that entered
+		int entered = 0;
+		for (int i=0;i<n;i++)
+			if (!slots.containsKey(csr.getNode(i)))
+				entered++;
+		ensureCapacity(size+Math.max(0, entered-freeSlots.size()));
+		
+		boolean[] dirty = new boolean[nodes.length];
+		int[] slotOf = new int[n];
+		for (int i=0;i<n;i++)
+		{
+			Integer slot = slots.get(csr.getNode(i));
+			if (slot==null)
+			{
+				slot = freeSlots.isEmpty() ? Integer.valueOf(size++) : freeSlots.remove(freeSlots.size()-1);
+				addNode(csr.getNode(i), slot);
+				dirty[slot] = true;
+			}
+			slotOf[i] = slot;
+		}
+		
+		long[] newArcs = getArcs(csr, slotOf);
+		double[] newArcWeights = getArcWeights(csr, slotOf, newArcs);
+		
+		// All sources are tested before any search, so that the distances shared by 
+		// symmetric rows are still those of the previous view.
+		boolean limited = maxTargets!=Integer.MAX_VALUE;
+		if (limited)
+			Arrays.fill(dirty, true);
+		int a = 0, b = 0;
+		while (!limited && (a<arcs.length || b<newArcs.length))
+		{
+			long key;
+			double w0, w;
+			if (b>=newArcs.length || (a<arcs.length && arcs[a]<newArcs[b]))
+			{
+				key = arcs[a];
+				w0 = arcWeights[a++];
+				w = INF;
+			}
+			else if (a>=arcs.length || newArcs[b]<arcs[a])
+			{
+				key = newArcs[b];
+				w0 = INF;
+				w = newArcWeights[b++];
+			}
+			else
+			{
+				key = arcs[a];
+				w0 = arcWeights[a++];
+				w = newArcWeights[b++];
+			}
+			if (w==w0)
+				continue;
+			int u = (int) (key>>>32);
+			int v = (int) (key&0xffffffffL);
+			for (int s=0;s<size;s++)
+			{
+				if (!active[s] || dirty[s])
+					continue;
+				// A removed or longer arc u->v matters to the sources with a shortest path through it,
+				// a new or shorter arc u->v to the sources whose distance to v it shortens
+				if (w>w0 ? isTight(s, u, v, w0) : isShortcut(s, u, v, w))
+					dirty[s] = true;
+			}
+		}
+		
+		for (Integer s : removed)
+			removeNode(s);
+		
+		SnapshotCSRDistance<T> search = new SnapshotCSRDistance<T>(csr, maxTargets);
+		int[] hops = new int[n];
+		double[] row = new double[n];
+		updatedSources = 0;
+		for (int i=0;i<n;i++)
+			if (dirty[slotOf[i]])
+				search(search, csr, i, slotOf, hops, row);
+		
+		freeSlots.addAll(removed);
+		arcs = newArcs;
+		arcWeights = newArcWeights;
+		
+		diameter = 0;
+		for (int s=0;s<size;s++)
+			if (active[s])
+				diameter = Math.max(diameter, ecc[s]);
+	}
+	
+	/**
+	 * Get the number of sources searched again by the last update.
+	 * @return number of sources
+	 */
+	public int getUpdatedSources()
+	{
+		return updatedSources;
+	}
+	
+	/**
+	 * Get the maximum distance over all pairs of connected nodes, as computed by 
+	 * {@link DistanceStatistics#diameter(org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot, Distance, boolean)}
+	 * with <code>use_max</code>.
+	 * @return diameter
+	 */
+	public double getDiameter()
+	{
+		return diameter;
+	}
+	
+	/**
+	 * Get the slot of the node, or -1 if the node is not in the current view.
+	 * @param node
+	 * @return slot
+	 */
+	public int getSlot(CyNode node)
+	{
+		Integer slot = slots.get(node);
+		return slot==null ? -1 : slot.intValue();
+	}
+	
+	/**
+	 * Get the distance between the nodes in the given slots, or positive infinity 
+	 * if the target is not reached.
+	 * @param source
+	 * @param target
+	 * @return distance
+	 */
+	public float getSlotDistance(int source, int target)
+	{
+		if (source>target)
+			return lower[source][target];
+		if (source<target)
+			return symmetric ? lower[target][source] : upper[target][source];
+		return 0;
+	}
+	
+	/**
+	 * Get the shorter of the distances between the nodes in the given slots in 
+	 * either direction, or positive infinity if neither is reached.
+	 * @param slot1
+	 * @param slot2
+	 * @return distance
+	 */
+	public float getSymmetricSlotDistance(int slot1, int slot2)
+	{
+		if (slot1==slot2)
+			return 0;
+		int s = Math.max(slot1, slot2);
+		int t = Math.min(slot1, slot2);
+		return symmetric ? lower[s][t] : Math.min(lower[s][t], upper[s][t]);
+	}
+
+	@Override
+	public Number getDistance(CyNode source, CyNode target)
+	{
+		int s = getSlot(source);
+		int t = getSlot(target);
+		if (s<0 || t<0)
+			return null;
+		float d = getSlotDistance(s, t);
+		return Float.isInfinite(d) ? null : new Double(d);
+	}
+
+	@Override
+	public Map<CyNode,Number> getDistanceMap(CyNode source)
+	{
+		Map<CyNode,Number> map = new HashMap<CyNode,Number>();
+		int s = getSlot(source);
+		if (s<0)
+			return map;
+		for (int t=0;t<size;t++)
+			if (active[t] && !Float.isInfinite(getSlotDistance(s, t)))
+				map.put(nodes[t], new Double(getSlotDistance(s, t)));
+		return map;
+	}
+	
+	// The arc u->v of weight w is on a shortest path from s.
+	private boolean isTight(int s, int u, int v, double w)
+	{
+		float du = getSlotDistance(s, u);
+		float dv = getSlotDistance(s, v);
+		return !Float.isInfinite(du) && !Float.isInfinite(dv) && du+w<=dv*(1+EPSILON)+EPSILON;
+	}
+	
+	// The arc u->v of weight w shortens the distance from s to v.
+	private boolean isShortcut(int s, int u, int v, double w)
+	{
+		float du = getSlotDistance(s, u);
+		float dv = getSlotDistance(s, v);
+		return !Float.isInfinite(du) && du+w<dv*(1-EPSILON)-EPSILON;
+	}
+	
+	// Set the distance from slot s to slot t!=s.
+	private void setSlotDistance(int s, int t, float d)
+	{
+		if (s>t)
+			lower[s][t] = d;
+		else if (symmetric)
+			lower[t][s] = d;
+		else
+			upper[t][s] = d;
+	}
+	
+	// Search from the node with the given index and store its row and eccentricity.
+	private void search(SnapshotCSRDistance<T> search, SnapshotCSR<T> csr, int source, int[] slotOf, int[] hops, double[] row)
+	{
+		int s = slotOf[source];
+		for (int t=0;t<size;t++)
+			if (t!=s)
+				setSlotDistance(s, t, INF);
+		float max = 0;
+		if (csr.isWeighted())
+		{
+			search.dijkstra(source, row);
+			for (int i=0;i<row.length;i++)
+				if (i!=source && !Double.isInfinite(row[i]))
+				{
+					setSlotDistance(s, slotOf[i], (float) row[i]);
+					max = Math.max(max, (float) row[i]);
+				}
+		}
+		else
+		{
+			search.bfs(source, hops);
+			for (int i=0;i<hops.length;i++)
+				if (i!=source && hops[i]>=0)
+				{
+					setSlotDistance(s, slotOf[i], hops[i]);
+					max = Math.max(max, hops[i]);
+				}
+		}
+		ecc[s] = max;
+		updatedSources++;
+	}
+	
+	// The distinct arcs u->v as source slot << 32 | target slot, sorted.
+	private long[] getArcs(SnapshotCSR<T> csr, int[] slotOf)
+	{
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		long[] keys = new long[csr.getArcCount()];
+		int count = 0;
+		for (int i=0;i<csr.getNodeCount();i++)
+			for (int k=offsets[i];k<offsets[i+1];k++)
+				if (targets[k]!=i)
+					keys[count++] = (((long) slotOf[i])<<32) | slotOf[targets[k]];
+		Arrays.sort(keys, 0, count);
+		int distinct = 0;
+		for (int k=0;k<count;k++)
+			if (distinct==0 || keys[k]!=keys[distinct-1])
+				keys[distinct++] = keys[k];
+		return Arrays.copyOf(keys, distinct);
+	}
+	
+	// The shortest weight of the parallel arcs of each of the given arcs.
+	private double[] getArcWeights(SnapshotCSR<T> csr, int[] slotOf, long[] keys)
+	{
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] csrWeights = csr.getWeights();
+		double[] weights = new double[keys.length];
+		Arrays.fill(weights, INF);
+		for (int i=0;i<csr.getNodeCount();i++)
+			for (int k=offsets[i];k<offsets[i+1];k++)
+			{
+				if (targets[k]==i)
+					continue;
+				int a = Arrays.binarySearch(keys, (((long) slotOf[i])<<32) | slotOf[targets[k]]);
+				weights[a] = Math.min(weights[a], csrWeights[k]);
+			}
+		return weights;
+	}
+	
+	private void addNode(CyNode node, int slot)
+	{
+		slots.put(node, slot);
+		nodes[slot] = node;
+		active[slot] = true;
+		ecc[slot] = 0;
+		if (lower[slot]==null)
+		{
+			lower[slot] = new float[slot];
+			if (!symmetric)
+				upper[slot] = new float[slot];
+		}
+		Arrays.fill(lower[slot], INF);
+		if (!symmetric)
+			Arrays.fill(upper[slot], INF);
+		for (int s=slot+1;s<size;s++)
+		{
+			lower[s][slot] = INF;
+			if (!symmetric)
+				upper[s][slot] = INF;
+		}
+	}
+	
+	private void removeNode(int slot)
+	{
+		slots.remove(nodes[slot]);
+		nodes[slot] = null;
+		active[slot] = false;
+	}
+	
+	// Only the references to the rows are copied, the rows never move.
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity<=nodes.length)
+			return;
+		capacity = Math.max(capacity, nodes.length+nodes.length/2);
+		nodes = Arrays.copyOf(nodes, capacity);
+		active = Arrays.copyOf(active, capacity);
+		ecc = Arrays.copyOf(ecc, capacity);
+		lower = Arrays.copyOf(lower, capacity);
+		if (!symmetric)
+			upper = Arrays.copyOf(upper, capacity);
+	}
+	
+	// Forget all nodes and distances, for views of the given symmetry.
+	private void clear(boolean symmetric)
+	{
+		this.symmetric = symmetric;
+		slots.clear();
+		freeSlots.clear();
+		nodes = new CyNode[0];
+		active = new boolean[0];
+		ecc = new float[0];
+		size = 0;
+		lower = new float[0][];
+		upper = symmetric ? null : new float[0][];
+		arcs = new long[0];
+		arcWeights = new double[0];
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.layout.standard.distance;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+import org.cytoscape.model.CyNode;
+
+/**
+ * <code> SnapshotCSRDistance </code> computes shortest path distances on a 
+ * {@link SnapshotCSR}, with BFS for unweighted and Dijkstra for weighted graphs. 
+ * The queue, the heap and the distance rows are preallocated and reused, so a 
+ * search does not allocate. Rows are cached per source. Instances are not thread 
+ * safe; use one per thread.
+ * 
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public class SnapshotCSRDistance<T> implements Distance<T>
+{
+	private final SnapshotCSR<T> csr;
+	private final double[][] rows;
+	
+	private final int[] queue;
+	private final int[] hops;
+	private final int[] heap;
+	private final int[] heapPos;
+	
+	private int maxTargets;
+
+	/**
+	 * <code> SnapshotCSRDistance </code> constructor.
+	 * @param csr
+	 */
+	public SnapshotCSRDistance(SnapshotCSR<T> csr)
+	{
+		int n = csr.getNodeCount();
+		this.csr = csr;
+		this.rows = new double[n][];
+		this.queue = new int[n];
+		this.hops = new int[n];
+		this.heap = new int[n];
+		this.heapPos = new int[n];
+		this.maxTargets = Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * <code> SnapshotCSRDistance </code> constructor. Only the <code>maxTargets</code>
+	 * nodes closest to each source (including the source) get a distance.
+	 * @param csr
+	 * @param maxTargets
+	 */
+	public SnapshotCSRDistance(SnapshotCSR<T> csr, int maxTargets)
+	{
+		this(csr);
+		this.maxTargets = maxTargets;
+	}
+
+	@Override
+	public Number getDistance(CyNode source, CyNode target)
+	{
+		int s = csr.getIndex(source);
+		int t = csr.getIndex(target);
+		if (s<0 || t<0)
+			return null;
+		double d = getDistanceRow(s)[t];
+		return Double.isInfinite(d) ? null : new Double(d);
+	}
+
+	@Override
+	public Map<CyNode,Number> getDistanceMap(CyNode source)
+	{
+		Map<CyNode,Number> map = new HashMap<CyNode,Number>();
+		int s = csr.getIndex(source);
+		if (s<0)
+			return map;
+		double[] row = getDistanceRow(s);
+		for (int i=0;i<row.length;i++)
+			if (!Double.isInfinite(row[i]))
+				map.put(csr.getNode(i), new Double(row[i]));
+		return map;
+	}
+	
+	/**
+	 * Get the cached distances from the source index to every node index, 
+	 * with positive infinity for unreachable nodes. The row must not be modified.
+	 * @param source
+	 * @return distance row
+	 */
+	public double[] getDistanceRow(int source)
+	{
+		if (rows[source]==null)
+		{
+			double[] row = new double[csr.getNodeCount()];
+			if (csr.isWeighted())
+				dijkstra(source, row);
+			else
+			{
+				bfs(source, hops);
+				for (int i=0;i<row.length;i++)
+					row[i] = hops[i]<0 ? Double.POSITIVE_INFINITY : hops[i];
+			}
+			rows[source] = row;
+		}
+		return rows[source];
+	}
+
+	/**
+	 * Breadth first search from the source index. Fills <code>dist</code> with the 
+	 * number of hops to each node, or -1 if the node is not reached.
+	 * @param source
+	 * @param dist - array of length at least n
+	 * @return number of reached nodes
+	 */
+	public int bfs(int source, int[] dist)
+	{
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		Arrays.fill(dist, 0, csr.getNodeCount(), -1);
+		dist[source] = 0;
+		queue[0] = source;
+		int head = 0, tail = 1;
+		while (head<tail && tail<maxTargets)
+		{
+			int v = queue[head++];
+			for (int k=offsets[v];k<offsets[v+1];k++)
+			{
+				int w = targets[k];
+				if (dist[w]<0)
+				{
+					dist[w] = dist[v]+1;
+					queue[tail++] = w;
+					if (tail>=maxTargets)
+						break;
+				}
+			}
+		}
+		return tail;
+	}
+	
+	/**
+	 * Dijkstra search from the source index. Fills <code>dist</code> with the weighted 
+	 * distance to each node, or positive infinity if the node is not reached.
+	 * @param source
+	 * @param dist - array of length at least n
+	 * @return number of reached nodes
+	 */
+	public int dijkstra(int source, double[] dist)
+	{
+		int[] offsets = csr.getOffsets();
+		int[] targets = csr.getTargets();
+		double[] weights = csr.getWeights();
+		Arrays.fill(dist, 0, csr.getNodeCount(), Double.POSITIVE_INFINITY);
+		Arrays.fill(heapPos, -1);
+		dist[source] = 0;
+		int size = 0;
+		heap[size] = source;
+		heapPos[source] = size++;
+		int settled = 0;
+		while (size>0 && settled<maxTargets)
+		{
+			int v = heap[0];
+			heapPos[v] = -2;
+			size--;
+			if (size>0)
+			{
+				heap[0] = heap[size];
+				heapPos[heap[0]] = 0;
+				siftDown(0, size, dist);
+			}
+			settled++;
+			for (int k=offsets[v];k<offsets[v+1];k++)
+			{
+				int w = targets[k];
+				if (heapPos[w]==-2)
+					continue;
+				double d = dist[v]+weights[k];
+				if (d<dist[w])
+				{
+					dist[w] = d;
+					if (heapPos[w]<0)
+					{
+						heap[size] = w;
+						heapPos[w] = size++;
+					}
+					siftUp(heapPos[w], dist);
+				}
+			}
+		}
+		for (int i=0;i<size;i++)
+			dist[heap[i]] = Double.POSITIVE_INFINITY;
+		return settled;
+	}
+	
+	/**
+	 * Get the graph the distances are computed on.
+	 * @return csr
+	 */
+	public SnapshotCSR<T> getCSR()
+	{
+		return csr;
+	}
+	
+	/**
+	 * Clear the cached distance rows.
+	 */
+	public void reset()
+	{
+		Arrays.fill(rows, null);
+	}
+	
+	private void siftUp(int i, double[] dist)
+	{
+		int v = heap[i];
+		while (i>0)
+		{
+			int p = (i-1)>>>1;
+			if (dist[heap[p]]<=dist[v])
+				break;
+			heap[i] = heap[p];
+			heapPos[heap[i]] = i;
+			i = p;
+		}
+		heap[i] = v;
+		heapPos[v] = i;
+	}
+	
+	private void siftDown(int i, int size, double[] dist)
+	{
+		int v = heap[i];
+		while (true)
+		{
+			int c = 2*i+1;
+			if (c>=size)
+				break;
+			if (c+1<size && dist[heap[c+1]]<dist[heap[c]])
+				c++;
+			if (dist[v]<=dist[heap[c]])
+				break;
+			heap[i] = heap[c];
+			heapPos[heap[i]] = i;
+			i = c;
+		}
+		heap[i] = v;
+		heapPos[v] = i;
+	}
+
+}
@@ -146,6 +146,20 @@ public class ForceSimulator
         }
     }
     
+    /**
+     * Replace a Force function of the simulator, keeping its place in the
+     * order in which the forces are accumulated.
+     * @param oldForce the Force function to remove
+     * @param newForce the Force function to add in its place
+     */
+    public void replaceForce(Force oldForce, Force newForce) 
+    {
+        for ( int i = 0; i < iflen; i++ )
+            if ( iforces[i] == oldForce ) iforces[i] = newForce;
+        for ( int i = 0; i < sflen; i++ )
+            if ( sforces[i] == oldForce ) sforces[i] = newForce;
+    }
+    
     /**
      * Get an array of all the Force functions used in this simulator.
      * @return an array of Force functions
@@ -176,6 +190,15 @@ public class ForceSimulator
         return items.remove(item);
     }
 
+    /**
+     * Get the number of registered ForceItems.
+     * @return the number of ForceItems
+     */
+    public int getItemCount() 
+    {
+        return items.size();
+    }
+
     /**
      * Get an iterator over all registered ForceItems.
      * @return an iterator over the ForceItems.
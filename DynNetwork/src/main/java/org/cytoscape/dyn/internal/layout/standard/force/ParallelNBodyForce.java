@@ -0,0 +1,558 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.layout.standard.force;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <code> ParallelNBodyForce </code> computes a Barnes-Hut n-body force like 
+ * {@link NBodyForce} for large numbers of items. Positions, masses and forces are copied 
+ * into float arrays, the items are sorted by the Morton code of their position, and the 
+ * quadtree is stored in arrays in which every subtree covers a contiguous range of sorted 
+ * items. Only cells with at least two non-empty quadrants get a node; the other cells of 
+ * the pointer quadtree have the mass of their only child. Subtrees are built, and the 
+ * forces of all items are computed, in chunks that run on an executor; each item is 
+ * handled by one thread, so the result does not depend on the number of threads. The 
+ * forces are computed by {@link #init(ForceSimulator)} and added to the items by 
+ * {@link #getForce(ForceItem)}.
+ * <p>
+ * The forces are close to, but not the same as, those of {@link NBodyForce}:
+ * <ul>
+ * <li>Coincident positions get a deterministic jitter instead of a random one.</li>
+ * <li>The tree stops at 15 levels, and the items that share a cell at that 
+ * depth interact pairwise.</li>
+ * <li>Items closer than 0.01 are not chained into deeper cells in insertion order, as 
+ * {@link NBodyForce} does; they are split by quadrant like the other items, or interact 
+ * pairwise in a deepest cell. Their mutual forces use their own distance instead of the 
+ * distance to the center of mass of the enclosing cell.</li>
+ * <li>The center of mass of a compressed cell is not recomputed at each skipped level, 
+ * so it can differ from the pointer quadtree by float rounding.</li>
+ * </ul>
+ * 
+ * @author Sabina Sara Pfister
+ */
+public class ParallelNBodyForce extends AbstractForce 
+{
+    private static String[] pnames = new String[] { "GravitationalConstant", 
+            "Distance", "BarnesHutTheta"  };
+    
+    public static final int GRAVITATIONAL_CONST = NBodyForce.GRAVITATIONAL_CONST;
+    public static final int MIN_DISTANCE = NBodyForce.MIN_DISTANCE;
+    public static final int BARNES_HUT_THETA = NBodyForce.BARNES_HUT_THETA;
+    
+    // number of quadtree levels resolved by the Morton codes
+    private static final int DEPTH = 15;
+    
+    /** Below this number of items the force runs in the calling thread. */
+    public static final int PARALLEL_THRESHOLD = 2048;
+    
+    // number of chunks per thread, to balance uneven subtrees
+    private static final int CHUNKS_PER_THREAD = 4;
+    
+    private final ExecutorService executor;
+    private final int parallelism;
+    
+    // items and their values, in simulator order
+    private ForceItem[] items = new ForceItem[0];
+    private float[] x = new float[0];
+    private float[] y = new float[0];
+    private float[] mass = new float[0];
+    private float[] fx = new float[0];
+    private float[] fy = new float[0];
+    private int n;
+    
+    // Morton code of each item shifted left by 32 bits, plus its index, sorted
+    private long[] keys = new long[0];
+    private long[] buffer = new long[0];
+    private int[] order = new int[0];
+    
+    // quadtree nodes; a node with the sorted items [lo,hi) uses the indices 
+    // [index,index+2*(hi-lo)-1), so that subtrees can be built independently
+    private int[] nodeLo = new int[0];
+    private int[] nodeHi = new int[0];
+    private int[] nodeChildren = new int[0];
+    private float[] nodeWidth = new float[0];
+    private float[] nodeMass = new float[0];
+    private float[] nodeX = new float[0];
+    private float[] nodeY = new float[0];
+    
+    private float xMin, yMin, xMax, yMax;
+    
+    private int cursor;
+    private Map<ForceItem,Integer> index;
+
+    /**
+     * <code> ParallelNBodyForce </code> constructor.
+     * @param executor - executor, or null to run in the calling thread
+     * @param parallelism - number of threads of the executor
+     */
+    public ParallelNBodyForce(ExecutorService executor, int parallelism) 
+    {
+        this(NBodyForce.DEFAULT_GRAV_CONSTANT, NBodyForce.DEFAULT_DISTANCE, 
+                NBodyForce.DEFAULT_THETA, executor, parallelism);
+    }
+    
+    /**
+     * <code> ParallelNBodyForce </code> constructor.
+     * @param gravConstant the gravitational constant to use. Nodes will
+     * attract each other if this value is positive, and will repel each
+     * other if it is negative.
+     * @param minDistance the distance within which two particles will
+     * interact. If -1, the value is treated as infinite.
+     * @param theta the Barnes-Hut parameter theta, which controls when
+     * an aggregated mass is used rather than drilling down to individual
+     * item mass values.
+     * @param executor - executor, or null to run in the calling thread
+     * @param parallelism - number of threads of the executor
+     */
+    public ParallelNBodyForce(float gravConstant, float minDistance, float theta,
+            ExecutorService executor, int parallelism) 
+    {
+        params = new float[] { gravConstant, minDistance, theta };
+        minValues = new float[] { NBodyForce.DEFAULT_MIN_GRAV_CONSTANT,
+            NBodyForce.DEFAULT_MIN_DISTANCE, NBodyForce.DEFAULT_MIN_THETA };
+        maxValues = new float[] { NBodyForce.DEFAULT_MAX_GRAV_CONSTANT,
+            NBodyForce.DEFAULT_MAX_DISTANCE, NBodyForce.DEFAULT_MAX_THETA };
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @see prefuse.util.force.Force#isItemForce()
+     */
+    public boolean isItemForce() 
+    {
+        return true;
+    }
+    
+    /**
+     * @see prefuse.util.force.AbstractForce#getParameterNames()
+     */
+    protected String[] getParameterNames() 
+    {
+        return pnames;
+    } 
+
+    /**
+     * Build the quadtree of the items of the simulator and compute the n-body 
+     * force acting on each of them.
+     * @param fsim the enclosing ForceSimulator
+     */
+    public void init(ForceSimulator fsim) 
+    {
+        load(fsim);
+        cursor = 0;
+        index = null;
+        if ( n == 0 )
+            return;
+        
+        setBounds();
+        boolean parallel = executor != null && parallelism > 1 && n >= PARALLEL_THRESHOLD;
+        int chunks = parallel ? Math.min(n, CHUNKS_PER_THREAD*parallelism) : 1;
+        
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(chunks);
+        for ( int c = 0; c < chunks; c++ ) 
+            tasks.add(new CodeTask((int) ((long) c*n/chunks), (int) ((long) (c+1)*n/chunks)));
+        invoke(tasks, parallel);
+        mergeSorted(chunks);
+        
+        // build the upper levels here and the subtrees of at most n/chunks items in tasks
+        tasks.clear();
+        List<Integer> upper = new ArrayList<Integer>();
+        build(0, n, 0, Math.max(1, n/chunks), tasks, upper);
+        invoke(tasks, parallel);
+        for ( Integer node : upper )
+            calcMass(node);
+        
+        tasks.clear();
+        for ( int c = 0; c < chunks; c++ ) 
+            tasks.add(new ForceTask((int) ((long) c*n/chunks), (int) ((long) (c+1)*n/chunks)));
+        invoke(tasks, parallel);
+    }
+
+    /**
+     * Adds the n-body force computed by the last {@link #init(ForceSimulator)} to the item.
+     * @param item the ForceItem for which to compute the force
+     */
+    public void getForce(ForceItem item) 
+    {
+        int i;
+        if ( cursor < n && items[cursor] == item ) {
+            i = cursor++;
+        } else {
+            // the simulator did not follow its item order
+            if ( index == null ) {
+                index = new IdentityHashMap<ForceItem,Integer>(2*n);
+                for ( int j = 0; j < n; j++ )
+                    index.put(items[j], j);
+            }
+            Integer j = index.get(item);
+            if ( j == null )
+                return;
+            i = j.intValue();
+        }
+        item.force[0] += fx[i];
+        item.force[1] += fy[i];
+    }
+    
+    private void load(ForceSimulator fsim) 
+    {
+        n = fsim.getItemCount();
+        if ( items.length < n ) {
+            int capacity = Math.max(n, items.length + items.length/2);
+            items = new ForceItem[capacity];
+            x = new float[capacity];
+            y = new float[capacity];
+            mass = new float[capacity];
+            fx = new float[capacity];
+            fy = new float[capacity];
+            keys = new long[capacity];
+            buffer = new long[capacity];
+            order = new int[capacity];
+            nodeLo = new int[2*capacity];
+            nodeHi = new int[2*capacity];
+            nodeChildren = new int[8*capacity];
+            nodeWidth = new float[2*capacity];
+            nodeMass = new float[2*capacity];
+            nodeX = new float[2*capacity];
+            nodeY = new float[2*capacity];
+        }
+        int i = 0;
+        Iterator<ForceItem> itemIter = fsim.getItems();
+        while ( itemIter.hasNext() ) {
+            ForceItem item = itemIter.next();
+            items[i] = item;
+            x[i] = item.location[0];
+            y[i] = item.location[1];
+            mass[i] = item.mass;
+            i++;
+        }
+        Arrays.fill(items, n, items.length, null);
+    }
+    
+    // Same bounds as NBodyForce: the smallest square with the lower left 
+    // corner of the items.
+    private void setBounds() 
+    {
+        float x1 = Float.MAX_VALUE, y1 = Float.MAX_VALUE;
+        float x2 = Float.MIN_VALUE, y2 = Float.MIN_VALUE;
+        for ( int i = 0; i < n; i++ ) {
+            if ( x[i] < x1 ) x1 = x[i];
+            if ( y[i] < y1 ) y1 = y[i];
+            if ( x[i] > x2 ) x2 = x[i];
+            if ( y[i] > y2 ) y2 = y[i];
+        }
+        float dx = x2-x1, dy = y2-y1;
+        if ( dx > dy ) { y2 = y1 + dx; } else { x2 = x1 + dy; }
+        xMin = x1;
+        yMin = y1;
+        xMax = x2;
+        yMax = y2;
+    }
+    
+    // The quadrant digits of the item, found with the same float splits as NBodyForce.
+    private long getKey(int i) 
+    {
+        float x1 = xMin, y1 = yMin, x2 = xMax, y2 = yMax;
+        long code = 0;
+        for ( int level = 0; level < DEPTH; level++ ) {
+            float splitx = (x1+x2)/2;
+            float splity = (y1+y2)/2;
+            int q = (x[i]>=splitx ? 1 : 0) + (y[i]>=splity ? 2 : 0);
+            if ( q==1 || q==3 ) x1 = splitx; else x2 = splitx;
+            if ( q > 1 )        y1 = splity; else y2 = splity;
+            code = (code << 2) | q;
+        }
+        return (code << 32) | i;
+    }
+    
+    // The width of the cell at the given level containing the item with the given key.
+    private float getWidth(long key, int level) 
+    {
+        int code = getCode(key);
+        float x1 = xMin, x2 = xMax;
+        for ( int l = 0; l < level; l++ ) {
+            float splitx = (x1+x2)/2;
+            if ( ((code >>> (2*(DEPTH-1-l))) & 1) == 1 ) x1 = splitx; else x2 = splitx;
+        }
+        return x2-x1;
+    }
+    
+    // Merge the sorted chunks of keys and extract the item order.
+    private void mergeSorted(int chunks) 
+    {
+        for ( int width = 1; width < chunks; width *= 2 ) {
+            for ( int c = 0; c < chunks; c += 2*width ) {
+                int lo = (int) ((long) c*n/chunks);
+                int mid = (int) ((long) Math.min(chunks, c+width)*n/chunks);
+                int hi = (int) ((long) Math.min(chunks, c+2*width)*n/chunks);
+                int a = lo, b = mid, k = lo;
+                while ( a < mid && b < hi )
+                    buffer[k++] = keys[a] <= keys[b] ? keys[a++] : keys[b++];
+                while ( a < mid ) buffer[k++] = keys[a++];
+                while ( b < hi ) buffer[k++] = keys[b++];
+            }
+            long[] swap = keys; keys = buffer; buffer = swap;
+        }
+        for ( int k = 0; k < n; k++ )
+            order[k] = (int) keys[k];
+    }
+    
+    private static int getCode(long key) 
+    {
+        return (int) (key >>> 32);
+    }
+    
+    // Build the node with the sorted items [lo,hi). Subtrees with at most grain items 
+    // are built by tasks; the other nodes are listed in post-order.
+    private void build(final int lo, final int hi, final int node, final int grain, 
+            List<Callable<Object>> tasks, List<Integer> upper) 
+    {
+        if ( tasks != null && hi-lo <= grain ) {
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    build(lo, hi, node, grain, null, null);
+                    return null;
+                }
+            });
+            return;
+        }
+        
+        nodeLo[node] = lo;
+        nodeHi[node] = hi;
+        int diff = getCode(keys[lo]) ^ getCode(keys[hi-1]);
+        Arrays.fill(nodeChildren, 4*node, 4*node+4, -1);
+        if ( diff == 0 ) {
+            // a leaf, with one item or several items in the smallest cell
+            nodeWidth[node] = getWidth(keys[lo], DEPTH);
+            calcMass(node);
+            return;
+        }
+        
+        // the highest quadrant digit in which the items differ gives the cell level
+        int digit = (31 - Integer.numberOfLeadingZeros(diff)) / 2;
+        nodeWidth[node] = getWidth(keys[lo], DEPTH-1-digit);
+        int child = node+1;
+        int start = lo;
+        for ( int q = 0; q < 4 && start < hi; q++ ) {
+            int end = start;
+            while ( end < hi && ((getCode(keys[end]) >>> (2*digit)) & 3) == q )
+                end++;
+            if ( end > start ) {
+                nodeChildren[4*node+q] = child;
+                build(start, end, child, grain, tasks, upper);
+                child += 2*(end-start)-1;
+                start = end;
+            }
+        }
+        if ( upper != null )
+            upper.add(node);
+        else
+            calcMass(node);
+    }
+    
+    // Aggregated like NBodyForce: children in quadrant order, then the items of a leaf.
+    private void calcMass(int node) 
+    {
+        float m = 0, xcom = 0, ycom = 0;
+        boolean leaf = true;
+        for ( int q = 0; q < 4; q++ ) {
+            int c = nodeChildren[4*node+q];
+            if ( c >= 0 ) {
+                leaf = false;
+                m += nodeMass[c];
+                xcom += nodeMass[c] * nodeX[c];
+                ycom += nodeMass[c] * nodeY[c];
+            }
+        }
+        if ( leaf ) {
+            for ( int k = nodeLo[node]; k < nodeHi[node]; k++ ) {
+                int i = order[k];
+                m += mass[i];
+                xcom += mass[i] * x[i];
+                ycom += mass[i] * y[i];
+            }
+        }
+        nodeMass[node] = m;
+        nodeX[node] = xcom / m;
+        nodeY[node] = ycom / m;
+    }
+    
+    // The traversal of NBodyForce.getForce, with an explicit stack.
+    private void calcForce(int i, int[] stack) 
+    {
+        float g = params[GRAVITATIONAL_CONST];
+        float minDistance = params[MIN_DISTANCE];
+        float theta = params[BARNES_HUT_THETA];
+        float xi = x[i], yi = y[i], mi = mass[i];
+        float fxi = 0, fyi = 0;
+        
+        int top = 0;
+        stack[top++] = 0;
+        while ( top > 0 ) {
+            int node = stack[--top];
+            float dx = nodeX[node] - xi;
+            float dy = nodeY[node] - yi;
+            float r  = (float)Math.sqrt(dx*dx+dy*dy);
+            boolean same = false;
+            if ( r == 0.0f ) {
+                dx = jitter(i, node, 0);
+                dy = jitter(i, node, 1);
+                r  = (float)Math.sqrt(dx*dx+dy*dy);
+                same = true;
+            }
+            boolean minDist = minDistance>0f && r>minDistance;
+            int lo = nodeLo[node], hi = nodeHi[node];
+            boolean leaf = nodeChildren[4*node] < 0 && nodeChildren[4*node+1] < 0
+                    && nodeChildren[4*node+2] < 0 && nodeChildren[4*node+3] < 0;
+            
+            if ( (leaf && hi-lo == 1 && order[lo] != i) || 
+                 (!same && nodeWidth[node]/r < theta) ) 
+            {
+                if ( minDist ) continue;
+                float v = g*mi*nodeMass[node] / (r*r*r);
+                fxi += v*dx;
+                fyi += v*dy;
+            } 
+            else if ( leaf ) 
+            {
+                // items in the same smallest cell interact one by one
+                for ( int k = lo; k < hi; k++ ) {
+                    int j = order[k];
+                    if ( j == i ) continue;
+                    float ex = x[j] - xi;
+                    float ey = y[j] - yi;
+                    float s = (float)Math.sqrt(ex*ex+ey*ey);
+                    if ( s == 0.0f ) {
+                        ex = jitter(i, j, 2);
+                        ey = jitter(i, j, 3);
+                        s  = (float)Math.sqrt(ex*ex+ey*ey);
+                    }
+                    if ( minDistance>0f && s>minDistance ) continue;
+                    float v = g*mi*mass[j] / (s*s*s);
+                    fxi += v*ex;
+                    fyi += v*ey;
+                }
+            }
+            else 
+            {
+                // children are popped in quadrant order
+                for ( int q = 3; q >= 0; q-- )
+                    if ( nodeChildren[4*node+q] >= 0 )
+                        stack[top++] = nodeChildren[4*node+q];
+            }
+        }
+        fx[i] = fxi;
+        fy[i] = fyi;
+    }
+    
+    // Deterministic replacement of the random offset used by NBodyForce for 
+    // coincident positions, in [-0.01,0.01).
+    private static float jitter(int i, int j, int k) 
+    {
+        long h = (((long) i << 32) ^ (j & 0xffffffffL)) * 0x9E3779B97F4A7C15L + k;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return ((h >>> 40) / (float)(1 << 24) - 0.5f) / 50.0f;
+    }
+    
+    private void invoke(List<Callable<Object>> tasks, boolean parallel) 
+    {
+        if ( !parallel ) {
+            try {
+                for ( Callable<Object> task : tasks )
+                    task.call();
+            } catch ( Exception e ) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(tasks.size());
+        for ( Callable<Object> task : tasks )
+            futures.add(executor.submit(task));
+        try {
+            for ( Future<Object> future : futures )
+                future.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch ( ExecutionException e ) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for ( Future<Object> future : futures )
+                future.cancel(true);
+        }
+    }
+    
+    /**
+     * Computes the Morton keys of a range of items and sorts them.
+     */
+    private final class CodeTask implements Callable<Object> 
+    {
+        private final int from, to;
+        
+        private CodeTask(int from, int to) 
+        {
+            this.from = from;
+            this.to = to;
+        }
+        
+        public Object call() 
+        {
+            for ( int i = from; i < to; i++ )
+                keys[i] = getKey(i);
+            Arrays.sort(keys, from, to);
+            return null;
+        }
+    }
+    
+    /**
+     * Computes the forces of a range of items in Morton order.
+     */
+    private final class ForceTask implements Callable<Object> 
+    {
+        private final int from, to;
+        
+        private ForceTask(int from, int to) 
+        {
+            this.from = from;
+            this.to = to;
+        }
+        
+        public Object call() 
+        {
+            int[] stack = new int[4*(DEPTH+2)];
+            for ( int k = from; k < to; k++ )
+                calcForce(order[k], stack);
+            return null;
+        }
+    }
+
+}
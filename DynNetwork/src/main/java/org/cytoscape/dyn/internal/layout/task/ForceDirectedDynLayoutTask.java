@@ -22,6 +22,8 @@ package org.cytoscape.dyn.internal.layout.task;
 import java.awt.Dimension;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.cytoscape.dyn.internal.layout.model.DynLayout;
 import org.cytoscape.dyn.internal.layout.standard.ForceDirectedLayout;
@@ -113,6 +115,10 @@ public final class ForceDirectedDynLayoutTask<T> extends AbstractLayoutTask
 			forcelayout.setDefaultDampingCoefficient(0.0000001);
 			forcelayout.setMaxIterations(100);
 			
+			// The n-body force of each iteration is split among the available processors
+			int threads = Runtime.getRuntime().availableProcessors();
+			ExecutorService executor = threads>1 ? Executors.newFixedThreadPool(threads) : null;
+			forcelayout.setExecutor(executor,threads);
 			
 
 //			double t0,t1;
@@ -130,22 +136,30 @@ public final class ForceDirectedDynLayoutTask<T> extends AbstractLayoutTask
 //			}
 			
 			double t0,t1;
-			for (int t=0;t<events.size()-1;t++)
+			try
 			{
-				t0 = events.get(Math.max(0,t-context.m_past_events));
-				t1 = events.get(Math.min(events.size()-1,t+1+context.m_future_events));
+				for (int t=0;t<events.size()-1;t++)
+				{
+					t0 = events.get(Math.max(0,t-context.m_past_events));
+					t1 = events.get(Math.min(events.size()-1,t+1+context.m_future_events));
 
-				snap.setInterval((DynInterval<T>) new DynIntervalDouble(t0,t1),t,1000,1000);
-				
-				forcelayout.initialize();
-				forcelayout.run();
-				updateGraph((DynInterval<T>) new DynIntervalDouble(events.get(t),events.get(t+1)));
-				forcelayout.setMaxIterations((int) (context.m_iteration_rate*(events.get(t+1)-events.get(t))));
+					snap.setInterval((DynInterval<T>) new DynIntervalDouble(t0,t1),t,1000,1000);
+					
+					forcelayout.initialize();
+					forcelayout.run();
+					updateGraph((DynInterval<T>) new DynIntervalDouble(events.get(t),events.get(t+1)));
+					forcelayout.setMaxIterations((int) (context.m_iteration_rate*(events.get(t+1)-events.get(t))));
 
-				if (t%10==0)
-					taskMonitor.setProgress(((double)t)/(double) events.size());
-				
-				taskMonitor.setStatusMessage("Running energy minimization... " + t + "/" + events.size());
+					if (t%10==0)
+						taskMonitor.setProgress(((double)t)/(double) events.size());
+					
+					taskMonitor.setStatusMessage("Running energy minimization... " + t + "/" + events.size());
+				}
+			}
+			finally
+			{
+				if (executor!=null)
+					executor.shutdownNow();
 			}
 			
 			// Finalize layout
@@ -22,13 +22,15 @@ package org.cytoscape.dyn.internal.layout.task;
 import java.awt.Dimension;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.cytoscape.dyn.internal.layout.model.DynLayout;
 import org.cytoscape.dyn.internal.layout.standard.KKLayout;
-import org.cytoscape.dyn.internal.layout.standard.distance.DijkstraShortestPath;
-import org.cytoscape.dyn.internal.layout.standard.distance.UnweightedShortestPath;
+import org.cytoscape.dyn.internal.layout.standard.distance.IncrementalShortestPaths;
 import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot;
 import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshotImpl;
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
 import org.cytoscape.dyn.internal.view.model.DynNetworkView;
@@ -116,34 +118,52 @@ public final class KKDynLayoutTask<T> extends AbstractLayoutTask
 			kklayout = new KKLayout<T>(snap,new Dimension(4*size,4*size));
 			List<Double> events = context.m_event_list;
 			
+			// The gradient search of each iteration is split among the available processors
+			int threads = Runtime.getRuntime().availableProcessors();
+			ExecutorService executor = threads>1 ? Executors.newFixedThreadPool(threads) : null;
+			kklayout.setExecutor(executor,threads);
+			
 			// Full KK evaluation to initialize the network at time t=0
 			kklayout.setAdjustForGravity(true);
 			kklayout.setExchangeVertices(context.m_exchange_nodes);
 			kklayout.setAutoscaling(context.m_autoscale);
 			kklayout.setMaxIterations(1000);
+			
+			// Distances are updated from one window to the next
+			IncrementalShortestPaths<T> paths = context.m_attribute_name.equals("none") ?
+					new IncrementalShortestPaths<T>() : new IncrementalShortestPaths<T>(100);
+			kklayout.setDistance(paths);
 
 			// Compute incremental KK. The number of iterations is proportional to the time to the next event.
 			double t0,t1;
-			for (int t=0;t<events.size()-1;t++)
+			try
 			{
-				t0 = events.get(Math.max(0,t-context.m_past_events));
-				t1 = events.get(Math.min(events.size()-1,t+1+context.m_future_events));
+				for (int t=0;t<events.size()-1;t++)
+				{
+					t0 = events.get(Math.max(0,t-context.m_past_events));
+					t1 = events.get(Math.min(events.size()-1,t+1+context.m_future_events));
 
-				snap.setInterval((DynInterval<T>) new DynIntervalDouble(t0,t1),t,1000,1000);
-				if (!context.m_attribute_name.equals("none"))
-					kklayout.setDistance(new DijkstraShortestPath<T>(snap,snap.getWeightMap(),100));
-				else
-					kklayout.setDistance(new UnweightedShortestPath<T>(snap));
-				
-				kklayout.initialize();
-				kklayout.run();
-				updateGraph((DynInterval<T>) new DynIntervalDouble(events.get(t),events.get(t+1)));
-				kklayout.setMaxIterations((int) (context.m_iteration_rate*(events.get(t+1)-events.get(t))));
-				
-				if (t%10==0)
-					taskMonitor.setProgress(((double)t)/(double) events.size());
-				
-				taskMonitor.setStatusMessage("Running energy minimization... " + t + "/" + events.size());
+					snap.setInterval((DynInterval<T>) new DynIntervalDouble(t0,t1),t,1000,1000);
+					if (!context.m_attribute_name.equals("none"))
+						paths.update(new SnapshotCSR<T>(snap,true,snap.getWeightMap()));
+					else
+						paths.update(new SnapshotCSR<T>(snap,true,null));
+					
+					kklayout.initialize();
+					kklayout.run();
+					updateGraph((DynInterval<T>) new DynIntervalDouble(events.get(t),events.get(t+1)));
+					kklayout.setMaxIterations((int) (context.m_iteration_rate*(events.get(t+1)-events.get(t))));
+					
+					if (t%10==0)
+						taskMonitor.setProgress(((double)t)/(double) events.size());
+					
+					taskMonitor.setStatusMessage("Running energy minimization... " + t + "/" + events.size());
+				}
+			}
+			finally
+			{
+				if (executor!=null)
+					executor.shutdownNow();
 			}
 			
 			// Finalize layout
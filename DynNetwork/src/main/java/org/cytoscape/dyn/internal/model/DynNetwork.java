@@ -25,6 +25,7 @@ import org.cytoscape.dyn.internal.model.attribute.DynAttribute;
 import org.cytoscape.dyn.internal.model.tree.AbstractDynInterval;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalTree;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
@@ -58,6 +59,29 @@ public interface DynNetwork<T>
 	 */
 	public void insertNode(CyNode node, String column, DynInterval<T> interval);
 	public void insertNodeUpdate(CyNode node, String column, DynInterval<T> interval);		
+	
+	/**
+	 * Write a series of computed node values for the time interval [start, end] at once. 
+	 * The column is created if needed, each interval is clipped to the lifetime of its node,
+	 * and all the new intervals are indexed in one bulk step.
+	 * @param column
+	 * @param suids of the nodes
+	 * @param values of the nodes
+	 * @param start
+	 * @param end
+	 */
+	public void writeNodeSeries(String column, long[] suids, double[] values, double start, double end);
+	
+	/**
+	 * Write a series of computed node values with one time interval [starts[i], ends[i]] 
+	 * per value at once. The same node may appear several times with disjoint intervals.
+	 * @param column
+	 * @param suids of the nodes
+	 * @param values of the nodes
+	 * @param starts of the intervals
+	 * @param ends of the intervals
+	 */
+	public void writeNodeSeries(String column, long[] suids, double[] values, double[] starts, double[] ends);
 	/**
 	 * Insert edge.
 	 * @param ede
@@ -108,6 +132,15 @@ public interface DynNetwork<T>
 	 */
 	public List<DynInterval<T>> searchNodesAttr(DynInterval<T> interval);
 	
+	/**
+	 * Search overlapping intervals for node attributes given an interval.
+	 * filtered by the given attribute name.
+	 * @param interval
+	 * @param attName
+	 * @return list of overlapping intervals
+	 */
+	public List<DynInterval<T>> searchNodesAttr(DynInterval<T> interval, String attName);
+	
 	/**
 	 * Search overlapping intervals for edge attributes given an interval.
 	 * @param interval
@@ -152,6 +185,50 @@ public interface DynNetwork<T>
 	 */
 	public List<CyEdge> getVisibleEdgeNotList(DynInterval<T> interval);
 	
+	/**
+	 * Get a new timeline cursor over the node intervals.
+	 * @return node timeline cursor
+	 */
+	public TimelineCursor<T> getNodeTimelineCursor();
+	
+	/**
+	 * Get a new timeline cursor over the edge intervals.
+	 * @return edge timeline cursor
+	 */
+	public TimelineCursor<T> getEdgeTimelineCursor();
+	
+	/**
+	 * Get a new timeline cursor over the node intervals.
+	 * @param setsFlags - if the cursor turns the intervals on and off
+	 * @return node timeline cursor
+	 */
+	public TimelineCursor<T> getNodeTimelineCursor(boolean setsFlags);
+	
+	/**
+	 * Get a new timeline cursor over the edge intervals.
+	 * @param setsFlags - if the cursor turns the intervals on and off
+	 * @return edge timeline cursor
+	 */
+	public TimelineCursor<T> getEdgeTimelineCursor(boolean setsFlags);
+	
+	/**
+	 * Get a new timeline cursor over the graph attribute intervals.
+	 * @return graph attribute timeline cursor
+	 */
+	public TimelineCursor<T> getGraphAttrTimelineCursor();
+	
+	/**
+	 * Get a new timeline cursor over the node attribute intervals.
+	 * @return node attribute timeline cursor
+	 */
+	public TimelineCursor<T> getNodeAttrTimelineCursor();
+	
+	/**
+	 * Get a new timeline cursor over the edge attribute intervals.
+	 * @return edge attribute timeline cursor
+	 */
+	public TimelineCursor<T> getEdgeAttrTimelineCursor();
+	
     /**
      * Get graph attribute list
      * @return graph attribute list
@@ -318,7 +395,25 @@ public interface DynNetwork<T>
 	 */
 	public void finalizeNetwork();
 	
+	/**
+	 * Update the interval trees with the graph, node and edge attributes inserted or 
+	 * modified since the network was finalized or last updated, and notify the update 
+	 * listeners {@link DynNetworkUpdateListener}.
+	 */
 	public void UpdateNetwork();
+	
+	/**
+	 * Add update listener.
+	 * @param listener
+	 */
+	public void addUpdateListener(DynNetworkUpdateListener<T> listener);
+	
+	/**
+	 * Remove update listener.
+	 * @param listener
+	 */
+	public void removeUpdateListener(DynNetworkUpdateListener<T> listener);
+	
 	/**
 	 * Get minimum time.
 	 * @return minimum time
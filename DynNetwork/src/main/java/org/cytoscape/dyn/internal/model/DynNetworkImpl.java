@@ -21,22 +21,30 @@ package org.cytoscape.dyn.internal.model;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.cytoscape.dyn.internal.io.read.util.KeyPairs;
 import org.cytoscape.dyn.internal.model.attribute.AbstractDynAttributeCheck;
 import org.cytoscape.dyn.internal.model.attribute.DynAttribute;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalColumnTreeImpl;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalTree;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalTreeImpl;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
+import org.cytoscape.dyn.internal.model.tree.TimelineIndex;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
 
 /**
  * <code> DynNetworkImpl </code> implements the interface {@link DynNetwork}
@@ -48,7 +56,8 @@ import org.cytoscape.model.CyNode;
  * intervals in a given interval time linearly in the list is computationally prohibitive,
  * we store the intervals separately also in a balanced tree {@link DynIntervalTree},
  * which guarantuees fast retrival of the appropriate intervals. We use several interval trees 
- * for different type of elements or attributes to avoid type checking at runtime.
+ * for different type of elements or attributes to avoid type checking at runtime, and the
+ * attribute trees are further partitioned by column {@link DynIntervalColumnTreeImpl}.
  * 
  * @author Sabina Sara Pfister
  *
@@ -71,9 +80,15 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 	private final DynIntervalTree<T> nodeTree;
 	private final DynIntervalTree<T> edgeTree;
 
-	private final DynIntervalTree<T> graphTreeAttr;
-	private final DynIntervalTree<T> nodeTreeAttr;
-	private final DynIntervalTree<T> edgeTreeAttr;
+	private final DynIntervalColumnTreeImpl<T> graphTreeAttr;
+	private final DynIntervalColumnTreeImpl<T> nodeTreeAttr;
+	private final DynIntervalColumnTreeImpl<T> edgeTreeAttr;
+
+	private final Set<DynAttribute<T>> dirtyGraphAttributes;
+	private final Set<DynAttribute<T>> dirtyNodeAttributes;
+	private final Set<DynAttribute<T>> dirtyEdgeAttributes;
+	
+	private final List<DynNetworkUpdateListener<T>> updateListeners;
 
 	private double minStartTime = Double.POSITIVE_INFINITY;
 	private double maxStartTime = Double.NEGATIVE_INFINITY;
@@ -100,14 +115,19 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 		this.nodeTree = new DynIntervalTreeImpl<T>();
 		this.edgeTree = new DynIntervalTreeImpl<T>();
 		
-		this.graphTreeAttr = new DynIntervalTreeImpl<T>();
-		this.nodeTreeAttr = new DynIntervalTreeImpl<T>();
-		this.edgeTreeAttr = new DynIntervalTreeImpl<T>();
+		this.graphTreeAttr = new DynIntervalColumnTreeImpl<T>();
+		this.nodeTreeAttr = new DynIntervalColumnTreeImpl<T>();
+		this.edgeTreeAttr = new DynIntervalColumnTreeImpl<T>();
 
 		this.graphTable = new HashMap<KeyPairs,DynAttribute<T>>();
 		this.nodeTable = new HashMap<KeyPairs,DynAttribute<T>>();
 		this.edgeTable = new HashMap<KeyPairs,DynAttribute<T>>();
-
+		
+		this.dirtyGraphAttributes = new LinkedHashSet<DynAttribute<T>>();
+		this.dirtyNodeAttributes = new LinkedHashSet<DynAttribute<T>>();
+		this.dirtyEdgeAttributes = new LinkedHashSet<DynAttribute<T>>();
+		
+		this.updateListeners = new CopyOnWriteArrayList<DynNetworkUpdateListener<T>>();
 	}
 
 	@Override
@@ -115,6 +135,7 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 	{
 		setMinMaxTime(interval);
 		setGraphDynAttribute(network, this.graphTable, this.network.getSUID(), column, interval);
+		this.dirtyGraphAttributes.add(this.graphTable.get(new KeyPairs(column, this.network.getSUID())));
 	}
 
 	@Override
@@ -122,6 +143,7 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 	{
 		setMinMaxTime(interval);
 		setNodeDynAttribute(network, this.nodeTable, node.getSUID(), column, interval);
+		this.dirtyNodeAttributes.add(this.nodeTable.get(new KeyPairs(column, node.getSUID())));
 	}
 	@Override
 	public synchronized void insertNodeUpdate(CyNode node, String column, DynInterval<T> interval)
@@ -136,11 +158,52 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 		nodeTreeAttr.insert(interval, getAttr(interval,key).getRow());
 	}
 	
+	@Override
+	public synchronized void writeNodeSeries(String column, long[] suids, double[] values, double start, double end)
+	{
+		double[] starts = new double[suids.length];
+		double[] ends = new double[suids.length];
+		Arrays.fill(starts, start);
+		Arrays.fill(ends, end);
+		writeNodeSeries(column, suids, values, starts, ends);
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized void writeNodeSeries(String column, long[] suids, double[] values, double[] starts, double[] ends)
+	{
+		CyTable table = network.getDefaultNodeTable();
+		if (table.getColumn(column)==null)
+			table.createColumn(column, Double.class, false);
+		
+		List<DynInterval<T>> intervalList = new ArrayList<DynInterval<T>>(suids.length);
+		for (int i=0; i<suids.length; i++)
+		{
+			DynAttribute<T> parentAttr = this.nodeTable.get(new KeyPairs(CyNetwork.NAME, suids[i]));
+			double s = parentAttr==null ? starts[i] : Math.max(parentAttr.getMinTime(), starts[i]);
+			double e = parentAttr==null ? ends[i] : Math.min(parentAttr.getMaxTime(), ends[i]);
+			if (s>e)
+				throw new IndexOutOfBoundsException("Invalid interval for node attr=" + column + " start=" + starts[i] + " end=" + ends[i]);
+			
+			DynInterval<T> interval = (DynInterval<T>) new DynIntervalDouble(values[i], s, e);
+			KeyPairs key = new KeyPairs(column, suids[i]);
+			if (this.nodeTable.containsKey(key))
+				this.nodeTable.get(key).addInterval(interval);
+			else
+				this.nodeTable.put(key, getAttr(interval,key));
+			intervalList.add(interval);
+			
+			network.getRow(network.getNode(suids[i])).set(column, values[i]);
+		}
+		nodeTreeAttr.insertAll(intervalList);
+	}
+	
 	@Override
 	public synchronized void insertEdge(CyEdge edge, String column, DynInterval<T> interval)
 	{
 		setMinMaxTime(interval);
 		setEdgeDynAttribute(network, this.edgeTable, edge.getSUID(), column, interval);
+		this.dirtyEdgeAttributes.add(this.edgeTable.get(new KeyPairs(column, edge.getSUID())));
 	}
 	
 	@Override
@@ -221,6 +284,48 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 		return edgeList;
 	}
 	
+	@Override
+	public TimelineCursor<T> getNodeTimelineCursor()
+	{
+		return new TimelineCursor<T>(nodeTree);
+	}
+	
+	@Override
+	public TimelineCursor<T> getEdgeTimelineCursor()
+	{
+		return new TimelineCursor<T>(edgeTree);
+	}
+	
+	@Override
+	public TimelineCursor<T> getNodeTimelineCursor(boolean setsFlags)
+	{
+		return new TimelineCursor<T>(nodeTree, setsFlags);
+	}
+	
+	@Override
+	public TimelineCursor<T> getEdgeTimelineCursor(boolean setsFlags)
+	{
+		return new TimelineCursor<T>(edgeTree, setsFlags);
+	}
+	
+	@Override
+	public TimelineCursor<T> getGraphAttrTimelineCursor()
+	{
+		return new TimelineCursor<T>(graphTreeAttr);
+	}
+	
+	@Override
+	public TimelineCursor<T> getNodeAttrTimelineCursor()
+	{
+		return new TimelineCursor<T>(nodeTreeAttr);
+	}
+	
+	@Override
+	public TimelineCursor<T> getEdgeAttrTimelineCursor()
+	{
+		return new TimelineCursor<T>(edgeTreeAttr);
+	}
+
 	@Override
 	public List<DynInterval<T>> searchGraphsAttr(DynInterval<T> interval)
 	{
@@ -233,6 +338,12 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 		return nodeTreeAttr.search(interval);
 	}
 
+	@Override
+	public List<DynInterval<T>> searchNodesAttr(DynInterval<T> interval, String attName)
+	{
+		return nodeTreeAttr.search(interval, attName);
+	}
+
 	@Override
 	public List<DynInterval<T>> searchEdgesAttr(DynInterval<T> interval)
 	{
@@ -242,11 +353,7 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 	@Override
 	public List<DynInterval<T>> searchEdgesAttr(DynInterval<T> interval,String attName) 
 	{
-		List<DynInterval<T>> list = new ArrayList<DynInterval<T>>();
-		for (DynInterval<T> i : edgeTreeAttr.search(interval))
-			if (i.getAttribute().getColumn().equals(attName))
-				list.add(i);
-		return list;
+		return edgeTreeAttr.search(interval, attName);
 	}
 
 	@Override
@@ -397,66 +504,85 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 	@Override
 	public void finalizeNetwork() 
 	{	
+		List<DynInterval<T>> graphList = new ArrayList<DynInterval<T>>();
+		List<DynInterval<T>> graphAttrList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : graphTable.values())
-			for (DynInterval<T> interval : attr.getIntervalList())
-				if (attr.getColumn().equals("name"))
-					graphTree.insert(interval, attr.getRow());	
-				else
-					graphTreeAttr.insert(interval, attr.getRow());	
+			if (attr.getColumn().equals("name"))
+				graphList.addAll(attr.getIntervalList());
+			else
+				graphAttrList.addAll(attr.getIntervalList());
+		graphTree.insertAll(graphList);
+		graphTreeAttr.insertAll(graphAttrList);
 
+		List<DynInterval<T>> nodeList = new ArrayList<DynInterval<T>>();
+		List<DynInterval<T>> nodeAttrList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : nodeTable.values())
-			for (DynInterval<T> interval : attr.getIntervalList())
-				if (attr.getColumn().equals("name"))
-					nodeTree.insert(interval, attr.getRow());
-				else
-					nodeTreeAttr.insert(interval, attr.getRow());
+			if (attr.getColumn().equals("name"))
+				nodeList.addAll(attr.getIntervalList());
+			else
+				nodeAttrList.addAll(attr.getIntervalList());
+		nodeTree.insertAll(nodeList);
+		nodeTreeAttr.insertAll(nodeAttrList);
 
+		List<DynInterval<T>> edgeList = new ArrayList<DynInterval<T>>();
+		List<DynInterval<T>> edgeAttrList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : edgeTable.values())
-			for (DynInterval<T> interval : attr.getIntervalList())
-				if (attr.getColumn().equals("name"))
-					edgeTree.insert(interval, attr.getRow());
-				else
-					edgeTreeAttr.insert(interval, attr.getRow());
+			if (attr.getColumn().equals("name"))
+				edgeList.addAll(attr.getIntervalList());
+			else
+				edgeAttrList.addAll(attr.getIntervalList());
+		edgeTree.insertAll(edgeList);
+		edgeTreeAttr.insertAll(edgeAttrList);
+		
+		// All intervals are indexed now
+		dirtyGraphAttributes.clear();
+		dirtyNodeAttributes.clear();
+		dirtyEdgeAttributes.clear();
 	}
 	
 	@Override
 	public void UpdateNetwork()
 	{
-		for (DynAttribute<T> attr : graphTable.values())
-			for (DynInterval<T> interval : attr.getIntervalList()){
-				if(attr.getColumn().equals("name")){
-					graphTree.remove(interval, attr.getRow());
-					graphTree.insert(interval, attr.getRow());
-				}
-				else{
-					graphTreeAttr.remove(interval, attr.getRow());
-					graphTreeAttr.insert(interval,  attr.getRow());
-				}
-			}	
-		for(DynAttribute<T> attr : nodeTable.values())
-			for(DynInterval<T> interval : attr.getIntervalList()){
-				if(attr.getColumn().equals("name")){
-					nodeTree.remove(interval, attr.getRow());
-					nodeTree.insert(interval, attr.getRow());
-				}
-				else{
-					nodeTreeAttr.remove(interval, attr.getRow());
-					nodeTreeAttr.insert(interval,  attr.getRow());
-				}
-			}	
-		for (DynAttribute<T> attr : edgeTable.values())
-			for (DynInterval<T> interval : attr.getIntervalList()){
-				if(attr.getColumn().equals("name")){
-					edgeTree.remove(interval, attr.getRow());
-					edgeTree.insert(interval, attr.getRow());
-				}
-				else{
-					edgeTreeAttr.remove(interval,attr.getRow());
-					edgeTreeAttr.insert(interval, attr.getRow());
-				}	
-			}
+		List<DynAttribute<T>> changedList = new ArrayList<DynAttribute<T>>();
+		synchronized (this)
+		{
+			update(dirtyGraphAttributes, graphTree, graphTreeAttr, changedList);
+			update(dirtyNodeAttributes, nodeTree, nodeTreeAttr, changedList);
+			update(dirtyEdgeAttributes, edgeTree, edgeTreeAttr, changedList);
+		}
 		
-		print();
+		if (!changedList.isEmpty())
+			for (DynNetworkUpdateListener<T> listener : updateListeners)
+				listener.handleUpdate(this, changedList);
+	}
+	
+	// Intervals may have been modified in place when they were merged, so they are removed 
+	// (found through their tree node) and inserted again with their current bounds.
+	private void update(Set<DynAttribute<T>> dirtyAttributes, DynIntervalTree<T> tree, DynIntervalTree<T> treeAttr, List<DynAttribute<T>> changedList)
+	{
+		for (DynAttribute<T> attr : dirtyAttributes)
+		{
+			DynIntervalTree<T> t = attr.getColumn().equals("name") ? tree : treeAttr;
+			for (DynInterval<T> interval : attr.getIntervalList())
+			{
+				t.remove(interval, attr.getRow());
+				t.insert(interval, attr.getRow());
+			}
+			changedList.add(attr);
+		}
+		dirtyAttributes.clear();
+	}
+	
+	@Override
+	public void addUpdateListener(DynNetworkUpdateListener<T> listener)
+	{
+		updateListeners.add(listener);
+	}
+	
+	@Override
+	public void removeUpdateListener(DynNetworkUpdateListener<T> listener)
+	{
+		updateListeners.remove(listener);
 	}
 
 	@Override
@@ -577,36 +703,27 @@ public final class DynNetworkImpl<T> extends AbstractDynAttributeCheck<T> implem
 	@Override
 	public List<Double> getEventTimeList()
 	{
-		List<Double> timeList = this.nodeTree.getEventTimeList();
-		for (Double d : this.edgeTree.getEventTimeList())
-			if (!timeList.contains(d))
-				timeList.add(d);
-		return sortList(timeList);
+		double[] times = TimelineIndex.merge(
+				this.nodeTree.getTimelineIndex().getEventTimes(), 
+				this.edgeTree.getTimelineIndex().getEventTimes());
+		return addMinMaxTime(times);
 	}
 	
 	@Override
 	public List<Double> getEventTimeList(String attName)
 	{
-		List<Double> timeList = this.nodeTree.getEventTimeList();
-		for (Double d : this.edgeTree.getEventTimeList())
-			if (!timeList.contains(d))
-				timeList.add(d);
-		for (Double d : this.edgeTreeAttr.getEventTimeList(attName))
-			if (!timeList.contains(d))
-				timeList.add(d);
-		return sortList(timeList);
-	}
-	
-	private List<Double> sortList(List<Double> timeList)
-	{
-		double mintime = this.getMinTime();
-		double maxTime = this.getMaxTime();
-		if (!timeList.contains(mintime))
-			timeList.add(mintime);
-		if (!timeList.contains(maxTime))
-			timeList.add(maxTime);
-		Collections.sort(timeList);
-		return timeList;
+		double[] times = TimelineIndex.merge(
+				this.nodeTree.getTimelineIndex().getEventTimes(), 
+				this.edgeTree.getTimelineIndex().getEventTimes());
+		times = TimelineIndex.merge(times, this.edgeTreeAttr.getTimelineIndex(attName).getEventTimes());
+		return addMinMaxTime(times);
+	}
+	
+	private List<Double> addMinMaxTime(double[] times)
+	{
+		double[] minMax = new double[] {this.getMinTime(), this.getMaxTime()};
+		Arrays.sort(minMax);
+		return TimelineIndex.toList(TimelineIndex.merge(times, minMax));
 	}
 	
 	@SuppressWarnings("unchecked")
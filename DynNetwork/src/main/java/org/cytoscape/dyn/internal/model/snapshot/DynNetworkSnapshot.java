@@ -244,6 +244,14 @@ public interface DynNetworkSnapshot<T>
 	 */
 	public int getEdgeCount();
 	
+	/**
+	 * Get the structural fingerprint, a hash of the visible node and edge ids that does 
+	 * not depend on the order in which they became visible. Two snapshots with the same 
+	 * nodes and edges have the same fingerprint.
+	 * @return fingerprint
+	 */
+	public long getFingerprint();
+	
 	/**
 	 * Get dynamic network view.
 	 * @return dynamic network view class
@@ -26,6 +26,7 @@ import java.util.Map;
 
 import org.cytoscape.dyn.internal.model.DynNetwork;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.IntervalDelta;
 import org.cytoscape.dyn.internal.view.model.DynNetworkView;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
@@ -34,6 +35,11 @@ import org.cytoscape.model.CyNode;
  * <code> DynNetworkSnapshotImpl </code> implements all methods to investigate a network in
  * time snapshots within the given time interval. It's computationally intensive, and should 
  * be used only when it is not sufficient to search for time intervals only.
+ * Nodes, edges and adjacency lists are kept in indexed lists, so that containment is O(1)
+ * and adding or removing a node or an edge costs O(deg). A node or an edge stays in the 
+ * snapshot as long as one of its intervals is visible. The snapshot keeps the visible 
+ * intervals to itself and does not touch their on/off flags, so that several snapshots
+ * of the same network can be moved independently, also from different threads.
  * 
  * @author Sabina Sara Pfister
  *
@@ -50,13 +56,16 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 	protected final Map<CyNode,List<CyEdge>> inEdges;
 	protected final Map<CyNode,List<CyEdge>> outEdges;
 	
+	private final Map<CyNode,List<CyEdge>> allInEdges;
+	private final Map<CyNode,List<CyEdge>> allOutEdges;
+	
 	private String attName;
 	
 	private DynInterval<T> timeInterval;
 	
-	private List<DynInterval<T>> currentNodes;
-	private List<DynInterval<T>> currentEdges;
-	private List<DynInterval<T>> currentEdgesAttr;
+	private final IntervalDelta<T> currentNodes;
+	private final IntervalDelta<T> currentEdges;
+	private final IntervalDelta<T> currentEdgesAttr;
 	
 	private final Map<CyNode,List<DynInterval<T>>> nodeIntervals;
 	private final Map<CyEdge,List<DynInterval<T>>> edgeIntervals;
@@ -64,6 +73,8 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 	
 	private final Map<CyEdge,Double> weightMap;
 	
+	private long fingerprint;
+	
 //	private double gaussMean;
 //	private double gaussStdPast;
 //	private double gaussStdFuture;
@@ -80,15 +91,18 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 		this.view = view;
 		this.network = view.getNetwork();
 		
-		this.nodeList = new ArrayList<CyNode>();
-		this.edgeList = new ArrayList<CyEdge>();
+		this.nodeList = new IndexedList<CyNode>();
+		this.edgeList = new IndexedList<CyEdge>();
 		
 		this.inEdges = new HashMap<CyNode,List<CyEdge>>();
 		this.outEdges = new HashMap<CyNode,List<CyEdge>>();
 		
-		this.currentNodes = new ArrayList<DynInterval<T>>();
-		this.currentEdges = new ArrayList<DynInterval<T>>();
-		this.currentEdgesAttr = new ArrayList<DynInterval<T>>();
+		this.allInEdges = new HashMap<CyNode,List<CyEdge>>();
+		this.allOutEdges = new HashMap<CyNode,List<CyEdge>>();
+		
+		this.currentNodes = new IntervalDelta<T>(false);
+		this.currentEdges = new IntervalDelta<T>(false);
+		this.currentEdgesAttr = new IntervalDelta<T>(false);
 		
 		this.nodeIntervals = new HashMap<CyNode,List<DynInterval<T>>>();
 		this.edgeIntervals = new HashMap<CyEdge,List<DynInterval<T>>>();
@@ -120,22 +134,22 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 //		this.ndFuture = new NormalDistributionImpl(gaussMean,gaussStdFuture);
 		
 		for (DynInterval<T> i : getChangedNodeIntervals(timeInterval))
-			if (i.isOn())
-				addNode(network.getNode(i));
+			if (currentNodes.contains(i))
+				showNode(network.getNode(i), i);
 			else
-				removeNode(network.getNode(i));
+				hideNode(network.getNode(i), i);
 
 		for (DynInterval<T> i : getChangedEdgeIntervals(timeInterval))
-			if (i.isOn())
-				addEdge(network.getEdge(i));
+			if (currentEdges.contains(i))
+				showEdge(network.getEdge(i), i);
 			else
-				removeEdge(network.getEdge(i));
+				hideEdge(network.getEdge(i), i);
 		
 		if (attName!=null && !attName.equals("none"))
 		{
 			for (DynInterval<T> i : getChangedEdgeAttrIntervals(timeInterval))
 				if (i.getAttribute().getColumn().equals(attName))
-					if (i.isOn())
+					if (currentEdgesAttr.contains(i))
 					{
 						CyEdge edge = network.getEdge(i);
 						addEdgeAttr(edge, i);
@@ -212,11 +226,14 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 	@Override
 	public CyEdge findEdge(CyNode node1, CyNode node2)
 	{
-		for (CyEdge edge : this.edgeList)
-			if (edge.getSource()==node1 && edge.getTarget()==node2)
-				return edge;
-			else if (edge.getSource()==node2 && edge.getTarget()==node1)
-				return edge;
+		if (this.allOutEdges.containsKey(node1))
+			for (CyEdge edge : this.allOutEdges.get(node1))
+				if (edge.getTarget()==node2)
+					return edge;
+		if (this.allInEdges.containsKey(node1))
+			for (CyEdge edge : this.allInEdges.get(node1))
+				if (edge.getSource()==node2)
+					return edge;
 		return null;
 	}
 	
@@ -224,21 +241,24 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 	public List<CyEdge> findEdgeSet(CyNode node1, CyNode node2)
 	{
 		ArrayList<CyEdge> list = new ArrayList<CyEdge>();
-		for (CyEdge edge : this.edgeList)
-			if (edge.getSource()==node1 && edge.getTarget()==node2)
-				list.add(edge);
-			else if (edge.getSource()==node2 && edge.getTarget()==node1)
-				list.add(edge);
+		if (this.allOutEdges.containsKey(node1))
+			for (CyEdge edge : this.allOutEdges.get(node1))
+				if (edge.getTarget()==node2)
+					list.add(edge);
+		if (this.allInEdges.containsKey(node1))
+			for (CyEdge edge : this.allInEdges.get(node1))
+				if (edge.getSource()==node2 && node1!=node2)
+					list.add(edge);
 		return list;
 	}
 	
 	@Override
 	public boolean isNeighbor(CyNode node1, CyNode node2)
 	{
-		for (CyEdge edge : this.inEdges.get(node1))
+		for (CyEdge edge : this.getInEdges(node1))
 			if (edge.getSource()==node2 || edge.getTarget()==node2)
 				return true;
-		for (CyEdge edge : this.outEdges.get(node1))
+		for (CyEdge edge : this.getOutEdges(node1))
 				if (edge.getSource()==node2 || edge.getTarget()==node2)
 					return true;
 		return false;
@@ -402,6 +422,12 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 		return edgeList.size();
 	}
 
+	@Override
+	public long getFingerprint()
+	{
+		return fingerprint;
+	}
+
 	@Override
 	public DynNetworkView<T> getNetworkView() 
 	{
@@ -450,60 +476,85 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 		}
 	}
 
-	protected void addNode(CyNode node)
+	private void showNode(CyNode node, DynInterval<T> i)
 	{
 		if (node!=null)
 		{
-			this.nodeList.add(node);
+			addNode(node);
+			nodeIntervals.get(node).add(i);
+		}
+	}
+	
+	private void hideNode(CyNode node, DynInterval<T> i)
+	{
+		List<DynInterval<T>> list = nodeIntervals.get(node);
+		if (list!=null && list.remove(i) && list.isEmpty())
+			removeNode(node);
+	}
+	
+	private void showEdge(CyEdge edge, DynInterval<T> i)
+	{
+		if (edge!=null)
+		{
+			addEdge(edge);
+			edgeIntervals.get(edge).add(i);
+		}
+	}
+	
+	private void hideEdge(CyEdge edge, DynInterval<T> i)
+	{
+		List<DynInterval<T>> list = edgeIntervals.get(edge);
+		if (list!=null && list.remove(i) && list.isEmpty())
+			removeEdge(edge);
+	}
+
+	protected void addNode(CyNode node)
+	{
+		if (node!=null && this.nodeList.add(node))
+		{
+			fingerprint += hash(node.getSUID(), false);
 			nodeIntervals.put(node, new ArrayList<DynInterval<T>>());
-			
-			for (CyEdge edge : this.edgeList)
-				if (edge.getSource()==node)
-					addOutEdge(node, edge);
-				else if (edge.getTarget()==node)
-					addInEdge(node, edge);
-				
+			this.inEdges.put(node, getEdgeList(allInEdges, node));
+			this.outEdges.put(node, getEdgeList(allOutEdges, node));
 		}
 	}
 
 	protected void removeNode(CyNode node)
 	{
-		if (node!=null)
+		if (node!=null && this.nodeList.remove(node))
 		{
+			fingerprint -= hash(node.getSUID(), false);
 			this.inEdges.remove(node);
 			this.outEdges.remove(node);
-			this.nodeList.remove(node);
 			this.nodeIntervals.remove(node);
+			releaseEdgeList(allInEdges, node);
+			releaseEdgeList(allOutEdges, node);
 		}
 	}
 	
 	protected void addEdge(CyEdge edge)
 	{
-		if (edge!=null)
+		if (edge!=null && this.edgeList.add(edge))
 		{
-			this.edgeList.add(edge);
+			fingerprint += hash(edge.getSUID(), true);
 			edgeIntervals.put(edge, new ArrayList<DynInterval<T>>());
 			edgeAttrIntervals.put(edge, new ArrayList<DynInterval<T>>());
-			
-			for (CyNode node : this.nodeList)
-			{
-				if (edge.getSource()==node)
-					addOutEdge(node, edge);
-				if (edge.getTarget()==node)
-					addInEdge(node, edge);
-			}
+			addOutEdge(edge.getSource(), edge);
+			addInEdge(edge.getTarget(), edge);
 		}
 	}
 
 	protected void removeEdge(CyEdge edge)
 	{
-		if (edge!=null)
+		if (edge!=null && this.edgeList.remove(edge))
 		{
-			for (CyNode node : this.inEdges.keySet())
-				this.inEdges.get(node).remove(edge);
-			for (CyNode node : this.outEdges.keySet())
-				this.outEdges.get(node).remove(edge);
-			this.edgeList.remove(edge);
+			fingerprint -= hash(edge.getSUID(), true);
+			if (this.allOutEdges.containsKey(edge.getSource()))
+				this.allOutEdges.get(edge.getSource()).remove(edge);
+			if (this.allInEdges.containsKey(edge.getTarget()))
+				this.allInEdges.get(edge.getTarget()).remove(edge);
+			releaseEdgeList(allOutEdges, edge.getSource());
+			releaseEdgeList(allInEdges, edge.getTarget());
 			this.edgeIntervals.remove(edge);
 		}
 	}
@@ -526,74 +577,61 @@ public class DynNetworkSnapshotImpl<T> implements DynNetworkSnapshot<T>
 
 	protected void addInEdge(CyNode node, CyEdge edge)
 	{
-		if (this.inEdges.containsKey(node))
-		{
-			if(!this.inEdges.get(node).contains(edge))
-				this.inEdges.get(node).add(edge);
-		}
-		else
-		{
-			ArrayList<CyEdge> list = new ArrayList<CyEdge>();
-			list.add(edge);
-			this.inEdges.put(node, list);
-		}
+		getEdgeList(allInEdges, node).add(edge);
 	}
 
 	protected void addOutEdge(CyNode node, CyEdge edge)
 	{
-		if (this.outEdges.containsKey(node))
-		{
-			if(!this.outEdges.get(node).contains(edge))
-				this.outEdges.get(node).add(edge);
-		}
-		else
+		getEdgeList(allOutEdges, node).add(edge);
+	}
+	
+	private List<CyEdge> getEdgeList(Map<CyNode,List<CyEdge>> map, CyNode node)
+	{
+		List<CyEdge> list = map.get(node);
+		if (list==null)
 		{
-			ArrayList<CyEdge> list = new ArrayList<CyEdge>();
-			list.add(edge);
-			this.outEdges.put(node, list);
+			list = new IndexedList<CyEdge>();
+			map.put(node, list);
 		}
+		return list;
+	}
+	
+	private void releaseEdgeList(Map<CyNode,List<CyEdge>> map, CyNode node)
+	{
+		List<CyEdge> list = map.get(node);
+		if (list!=null && list.isEmpty() && !this.nodeList.contains(node))
+			map.remove(node);
 	}
 	
 	private List<DynInterval<T>> getChangedNodeIntervals(DynInterval<T> interval)
 	{
 		List<DynInterval<T>> tempList = network.searchNodes(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentNodes, tempList);
-		currentNodes = tempList;
+		List<DynInterval<T>> changedList = currentNodes.update(tempList);
 		return changedList;
 	}
 	
 	private List<DynInterval<T>> getChangedEdgeIntervals(DynInterval<T> interval)
 	{
 		List<DynInterval<T>> tempList = network.searchEdges(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentEdges, tempList);
-		currentEdges = tempList;
+		List<DynInterval<T>> changedList = currentEdges.update(tempList);
 		return changedList;
 	}
 	
 	private List<DynInterval<T>> getChangedEdgeAttrIntervals(DynInterval<T> interval)
 	{
 		List<DynInterval<T>> tempList = network.searchEdgesAttr(interval,attName);
-		List<DynInterval<T>> changedList = nonOverlap(currentEdgesAttr, tempList);
-		currentEdgesAttr = tempList;
+		List<DynInterval<T>> changedList = currentEdgesAttr.update(tempList);
 		return changedList;
 	}
 
-	private List<DynInterval<T>> nonOverlap(List<DynInterval<T>> list1, List<DynInterval<T>> list2) 
-	{
-		List<DynInterval<T>> diff = new ArrayList<DynInterval<T>>();
-		for (DynInterval<T> i : list1)
-			if (!list2.contains(i))
-			{
-				diff.add(i);
-				i.setOn(false);
-			}
-		for (DynInterval<T> i : list2)
-			if (!list1.contains(i))
-			{
-				diff.add(i);
-				i.setOn(true);
-			}
-		return diff;
+	// Scrambles the id (SplitMix64 finalizer), so that the sum over the visible ids 
+	// is an order independent hash that can be updated when a single id is added or removed.
+	private static long hash(long suid, boolean isEdge)
+	{
+		long z = 2*suid + (isEdge ? 1 : 0) + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 	private double getWeight(List<DynInterval<T>> list)
@@ -130,12 +130,7 @@ public class DynNetworkTreeSnapshotImpl<T> extends DynNetworkSnapshotImpl<T> imp
 	{
 		if (node!=null)
 		{
-			this.nodeList.add(node);
-			for (CyEdge edge : this.edgeList)
-				if (edge.getSource()==node)
-					addOutEdge(node, edge);
-				else if (edge.getTarget()==node)
-					addInEdge(node, edge);
+			super.addNode(node);
 			this.addRoot(node);
 		}
 	}
@@ -145,9 +140,7 @@ public class DynNetworkTreeSnapshotImpl<T> extends DynNetworkSnapshotImpl<T> imp
 	{
 		if (node!=null)
 		{
-			this.inEdges.remove(node);
-			this.outEdges.remove(node);
-			this.nodeList.remove(node);
+			super.removeNode(node);
 			this.removeRoot(node);
 		}
 	}
@@ -157,14 +150,7 @@ public class DynNetworkTreeSnapshotImpl<T> extends DynNetworkSnapshotImpl<T> imp
 	{
 		if (edge!=null)
 		{
-			this.edgeList.add(edge);
-			for (CyNode node : this.nodeList)
-			{
-				if (edge.getSource()==node)
-					addOutEdge(node, edge);
-				if (edge.getTarget()==node)
-					addInEdge(node, edge);
-			}
+			super.addEdge(edge);
 			this.removeRoot(edge.getTarget());
 			this.addRoot(edge.getSource());
 		}
@@ -175,11 +161,7 @@ public class DynNetworkTreeSnapshotImpl<T> extends DynNetworkSnapshotImpl<T> imp
 	{
 		if (edge!=null)
 		{
-			for (CyNode node : this.inEdges.keySet())
-				this.inEdges.get(node).remove(edge);
-			for (CyNode node : this.outEdges.keySet())
-				this.outEdges.get(node).remove(edge);
-			this.edgeList.remove(edge);
+			super.removeEdge(edge);
 			this.addRoot(edge.getSource());
 			this.addRoot(edge.getTarget());
 		}
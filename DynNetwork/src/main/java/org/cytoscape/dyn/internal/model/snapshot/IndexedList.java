@@ -0,0 +1,148 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.snapshot;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * <code> IndexedList </code> is a list without duplicates backed by an array and a
+ * hash index from element to position. Containment, lookup and removal are O(1):
+ * removal moves the last element into the freed slot, so the order of the elements
+ * is not preserved.
+ * 
+ * @author Sabina Sara Pfister
+ *
+ * @param <E>
+ */
+final class IndexedList<E> extends AbstractList<E> implements RandomAccess
+{
+	private final ArrayList<E> elements;
+	private final Map<E,Integer> index;
+
+	/**
+	 * <code> IndexedList </code> constructor.
+	 */
+	public IndexedList()
+	{
+		this.elements = new ArrayList<E>();
+		this.index = new HashMap<E,Integer>();
+	}
+
+	@Override
+	public E get(int i)
+	{
+		return elements.get(i);
+	}
+
+	@Override
+	public int size()
+	{
+		return elements.size();
+	}
+
+	/**
+	 * Append the element if it is not already in the list.
+	 * @param e
+	 * @return true if the element was added
+	 */
+	@Override
+	public boolean add(E e)
+	{
+		if (index.containsKey(e))
+			return false;
+		index.put(e, elements.size());
+		elements.add(e);
+		return true;
+	}
+
+	/**
+	 * Replace the element at position i. The new element must not be elsewhere
+	 * in the list.
+	 * @param i
+	 * @param e
+	 * @return previous element
+	 */
+	@Override
+	public E set(int i, E e)
+	{
+		Integer slot = index.get(e);
+		if (slot!=null && slot.intValue()!=i)
+			throw new IllegalArgumentException("Element is already in the list");
+		E previous = elements.set(i, e);
+		index.remove(previous);
+		index.put(e, i);
+		return previous;
+	}
+
+	@Override
+	public E remove(int i)
+	{
+		E e = elements.get(i);
+		remove(e);
+		return e;
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		Integer slot = index.remove(o);
+		if (slot==null)
+			return false;
+		int last = elements.size()-1;
+		E moved = elements.remove(last);
+		if (slot.intValue()!=last)
+		{
+			elements.set(slot.intValue(), moved);
+			index.put(moved, slot);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return index.containsKey(o);
+	}
+
+	@Override
+	public int indexOf(Object o)
+	{
+		Integer slot = index.get(o);
+		return slot==null ? -1 : slot.intValue();
+	}
+
+	@Override
+	public int lastIndexOf(Object o)
+	{
+		return indexOf(o);
+	}
+
+	@Override
+	public void clear()
+	{
+		elements.clear();
+		index.clear();
+	}
+
+}
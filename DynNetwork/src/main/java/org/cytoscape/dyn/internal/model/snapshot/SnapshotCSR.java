@@ -0,0 +1,222 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.snapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+/**
+ * <code> SnapshotCSR </code> freezes the current state of a {@link DynNetworkSnapshot} 
+ * into compressed sparse row arrays. Nodes get a dense index in [0,n), and the neighbors 
+ * of node i are <code>targets[offsets[i]..offsets[i+1])</code> with the corresponding 
+ * edge weights in <code>weights</code>. Graph algorithms can then run on int indices 
+ * without allocating lists or looking up hash maps. The view is not updated when the 
+ * snapshot changes and must be rebuilt after {@link DynNetworkSnapshot#setInterval}.
+ * 
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class SnapshotCSR<T>
+{
+	private final CyNode[] nodes;
+	private final Map<CyNode,Integer> index;
+	
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	
+	private final boolean directed;
+	private final boolean weighted;
+
+	/**
+	 * <code> SnapshotCSR </code> constructor. If directed, the neighbors of a node are 
+	 * the targets of its out-edges, otherwise they are the opposite nodes of all its 
+	 * edges. Neighbors are listed in the same order as {@link DynNetworkSnapshot#getNeighbors}
+	 * and {@link DynNetworkSnapshot#getOutEdges}, so traversals visit nodes in the same 
+	 * order as on the snapshot. Edges whose endpoints are not in the snapshot are skipped.
+	 * @param snapshot
+	 * @param directed
+	 * @param weightMap - edge weights, or null to give all edges weight 1
+	 */
+	public SnapshotCSR(DynNetworkSnapshot<T> snapshot, boolean directed, Map<CyEdge,? extends Number> weightMap)
+	{
+		this.directed = directed;
+		this.weighted = weightMap!=null;
+		
+		List<CyNode> nodeList = snapshot.getNodes();
+		int n = nodeList.size();
+		this.nodes = nodeList.toArray(new CyNode[n]);
+		this.index = new HashMap<CyNode,Integer>(2*n);
+		for (int i=0;i<n;i++)
+			index.put(nodes[i], i);
+		
+		this.offsets = new int[n+1];
+		for (int i=0;i<n;i++)
+		{
+			int degree = 0;
+			if (!directed)
+				for (CyEdge edge : snapshot.getInEdges(nodes[i]))
+					if (getIndex(edge.getSource())>=0)
+						degree++;
+			for (CyEdge edge : snapshot.getOutEdges(nodes[i]))
+				if (getIndex(edge.getTarget())>=0)
+					degree++;
+			offsets[i+1] = offsets[i]+degree;
+		}
+		
+		this.targets = new int[offsets[n]];
+		this.weights = new double[offsets[n]];
+		for (int i=0;i<n;i++)
+		{
+			int k = offsets[i];
+			if (!directed)
+				for (CyEdge edge : snapshot.getInEdges(nodes[i]))
+				{
+					int j = getIndex(edge.getSource());
+					if (j>=0)
+					{
+						targets[k] = j;
+						weights[k++] = getWeight(weightMap, edge);
+					}
+				}
+			for (CyEdge edge : snapshot.getOutEdges(nodes[i]))
+			{
+				int j = getIndex(edge.getTarget());
+				if (j>=0)
+				{
+					targets[k] = j;
+					weights[k++] = getWeight(weightMap, edge);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of nodes.
+	 * @return node count
+	 */
+	public int getNodeCount()
+	{
+		return nodes.length;
+	}
+	
+	/**
+	 * Get the number of stored arcs (each undirected edge is stored twice).
+	 * @return arc count
+	 */
+	public int getArcCount()
+	{
+		return targets.length;
+	}
+	
+	/**
+	 * Get the dense index of the node, or -1 if the node is not in the snapshot.
+	 * @param node
+	 * @return index
+	 */
+	public int getIndex(CyNode node)
+	{
+		Integer i = index.get(node);
+		return i==null ? -1 : i.intValue();
+	}
+	
+	/**
+	 * Get the node with the given dense index.
+	 * @param i
+	 * @return node
+	 */
+	public CyNode getNode(int i)
+	{
+		return nodes[i];
+	}
+	
+	/**
+	 * Get the number of neighbors of node i.
+	 * @param i
+	 * @return degree
+	 */
+	public int getDegree(int i)
+	{
+		return offsets[i+1]-offsets[i];
+	}
+	
+	/**
+	 * Get the row offsets, of length n+1. The array is shared and must not be modified.
+	 * @return offsets
+	 */
+	public int[] getOffsets()
+	{
+		return offsets;
+	}
+	
+	/**
+	 * Get the neighbor indices. The array is shared and must not be modified.
+	 * @return targets
+	 */
+	public int[] getTargets()
+	{
+		return targets;
+	}
+	
+	/**
+	 * Get the arc weights. The array is shared and must not be modified.
+	 * @return weights
+	 */
+	public double[] getWeights()
+	{
+		return weights;
+	}
+	
+	/**
+	 * Return if arcs follow the edge direction only.
+	 * @return boolean
+	 */
+	public boolean isDirected()
+	{
+		return directed;
+	}
+	
+	/**
+	 * Return if the arcs carry weights from a weight map.
+	 * @return boolean
+	 */
+	public boolean isWeighted()
+	{
+		return weighted;
+	}
+	
+	private static double getWeight(Map<CyEdge,? extends Number> weightMap, CyEdge edge)
+	{
+		if (weightMap==null)
+			return 1;
+		Number w = weightMap.get(edge);
+		if (w==null)
+			return 1;
+		if (w.doubleValue()<0)
+			throw new IllegalArgumentException("Edges weights must be non-negative");
+		return w.doubleValue();
+	}
+
+}
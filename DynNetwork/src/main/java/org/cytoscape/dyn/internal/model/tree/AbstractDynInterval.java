@@ -44,6 +44,10 @@ public abstract class AbstractDynInterval<T> implements DynInterval<T>
 	
 	protected DynAttribute<T> attribute;
 	
+	private DynNode<T> node;
+	private int nodeSlot = -1;
+	private int idSlot = -1;
+	
 	/**
 	 * <code> AbstractDynInterval </code> constructor.
 	 * @param interval
@@ -198,4 +202,35 @@ public abstract class AbstractDynInterval<T> implements DynInterval<T>
 		this.isOn = isOn;
 	}
 	
+	@Override
+	public DynNode<T> getNode()
+	{
+		return node;
+	}
+	
+	@Override
+	public int getNodeSlot()
+	{
+		return nodeSlot;
+	}
+	
+	@Override
+	public void setNode(DynNode<T> node, int slot)
+	{
+		this.node = node;
+		this.nodeSlot = slot;
+	}
+	
+	@Override
+	public int getIdSlot()
+	{
+		return idSlot;
+	}
+	
+	@Override
+	public void setIdSlot(int slot)
+	{
+		this.idSlot = slot;
+	}
+	
 }
@@ -40,6 +40,9 @@ public abstract class AbstractDynIntervalTree<T> implements DynIntervalTree<T>
 	protected final Map<Long,List<DynInterval<T>>> intervalMap;
 	protected List<DynInterval<T>> currentIntervals;
 	
+	private TimelineIndex<T> timelineIndex;
+	private int size;
+	
 	/**
 	 * <code> AbstractDynIntervalTree </code> constructor.
 	 */
@@ -71,9 +74,13 @@ public abstract class AbstractDynIntervalTree<T> implements DynIntervalTree<T>
 	{
 		this(new DynNode<T>(interval, new DynNode<T>()));
 		addInterval(id, interval);
+		this.size = 1;
 	}
 
-	@Override
+	/**
+	 * Returns root of the tree.
+	 * @return root
+	 */
 	public DynNode<T> getRoot()
 	{
 		return root.getLeft();
@@ -84,27 +91,78 @@ public abstract class AbstractDynIntervalTree<T> implements DynIntervalTree<T>
 	{	
 		insert(new DynNode<T>(interval, nil), root.getLeft());
 		addInterval(id, interval);
+		this.timelineIndex = null;
+		this.size++;
 	}
 	
 	abstract protected void insert(DynNode<T> z, DynNode<T> root);
 	
+	@Override
+	public void insertAll(List<DynInterval<T>> intervals)
+	{
+		// A batch that is small compared to the tree is cheaper to insert one by one
+		if (intervals.size() < size/4)
+		{
+			for (DynInterval<T> interval : intervals)
+				insert(interval, interval.getAttribute().getRow());
+			return;
+		}
+		
+		List<DynInterval<T>> list = getIntervals();
+		list.addAll(intervals);
+		build(list);
+		for (DynInterval<T> interval : intervals)
+			addInterval(interval.getAttribute().getRow(), interval);
+		this.timelineIndex = null;
+		this.size = list.size();
+	}
+	
+	abstract protected void build(List<DynInterval<T>> intervals);
+	
 	@Override
 	public void remove(DynInterval<T> interval, long id)
 	{
 		DynNode<T> z = searchThisNode(interval);
 		if (z!=null)
+		{
 			if (z.getIntervalList().size()>1)
 				z.removeInterval(interval);
 			else
-				remove(z);	
+			{
+				remove(z);
+				z.removeInterval(interval);
+			}
+			this.size--;
+		}
 		removeInterval(id, interval);
+		this.timelineIndex = null;
 	}
 	
+	// The interval keeps a reference to its node, which is used if the node still belongs to 
+	// this tree. Intervals without node were never inserted (or already removed), otherwise 
+	// (e.g. the interval was inserted in another tree) the tree is searched.
 	protected DynNode<T> searchThisNode(DynInterval<T> interval)
 	{
+		DynNode<T> z = interval.getNode();
+		if (z==null)
+			return null;
+		if (z.containsInterval(interval) && isInTree(z))
+			return z;
 		return root.getLeft().searchThisNode(interval);
 	}
 	
+	private boolean isInTree(DynNode<T> z)
+	{
+		while (z!=root)
+		{
+			DynNode<T> parent = z.getParent();
+			if (z.isLeaf() || (parent.getLeft()!=z && parent.getRight()!=z))
+				return false;
+			z = parent;
+		}
+		return true;
+	}
+	
 	abstract protected void remove(DynNode<T> z);
 	
 	@Override
@@ -137,6 +195,17 @@ public abstract class AbstractDynIntervalTree<T> implements DynIntervalTree<T>
 		this.nil.setLeft(this.nil);
 		this.nil.setRight(this.nil);
 		this.root.setLeft(this.nil);
+		this.intervalMap.clear();
+		this.timelineIndex = null;
+		this.size = 0;
+	}
+	
+	@Override
+	public synchronized TimelineIndex<T> getTimelineIndex()
+	{
+		if (this.timelineIndex==null)
+			this.timelineIndex = new TimelineIndex<T>(getIntervals());
+		return this.timelineIndex;
 	}
 	
 	@Override
@@ -151,46 +220,48 @@ public abstract class AbstractDynIntervalTree<T> implements DynIntervalTree<T>
 	@Override
 	public List<Double> getEventTimeList()
 	{
-		List<Double> timeList = new ArrayList<Double>();
-		for (DynInterval<T> interval : this.getIntervals())
-		{
-			if (interval.getStart()!=Double.NEGATIVE_INFINITY && !timeList.contains(interval.getStart()))
-				timeList.add(interval.getStart());
-			if (interval.getEnd()!=Double.POSITIVE_INFINITY && !timeList.contains(interval.getEnd()))
-				timeList.add(interval.getEnd());
-		}
-		return timeList;
+		return TimelineIndex.toList(getTimelineIndex().getEventTimes());
 	}
 	
 	@Override
 	public List<Double> getEventTimeList(String attName)
 	{
-		List<Double> timeList = new ArrayList<Double>();
-		for (DynInterval<T> interval : this.getIntervals())
-		{
-			if (interval.getAttribute().getColumn().equals(attName))
-			{
-				if (interval.getStart()!=Double.NEGATIVE_INFINITY && !timeList.contains(interval.getStart()))
-					timeList.add(interval.getStart());
-				if (interval.getEnd()!=Double.POSITIVE_INFINITY && !timeList.contains(interval.getEnd()))
-					timeList.add(interval.getEnd());
-			}
-		}
-		return timeList;
+		return TimelineIndex.toList(getTimelineIndex().getEventTimes(attName));
 	}
 
 	protected void addInterval(long id, DynInterval<T> interval)
 	{
 		if (!this.intervalMap.containsKey(id))
 			this.intervalMap.put(id, new ArrayList<DynInterval<T>>());
-		this.intervalMap.get(id).add(interval);	
+		List<DynInterval<T>> list = this.intervalMap.get(id);
+		interval.setIdSlot(list.size());
+		list.add(interval);	
 	}
 	
+	// The last interval of the list takes the position of the removed one, so that 
+	// removal is O(1).
 	protected void removeInterval(long id, DynInterval<T> interval)
 	{
-		if (this.intervalMap.containsKey(id))
-			if (this.intervalMap.get(id).contains(interval))
-				this.intervalMap.get(id).remove(interval);	
+		List<DynInterval<T>> list = this.intervalMap.get(id);
+		if (list==null)
+			return;
+		int slot = interval.getIdSlot();
+		if (slot<0 || slot>=list.size() || list.get(slot)!=interval)
+		{
+			slot = -1;
+			for (int i=0; i<list.size() && slot<0; i++)
+				if (list.get(i)==interval)
+					slot = i;
+			if (slot<0)
+				return;
+		}
+		DynInterval<T> last = list.remove(list.size()-1);
+		if (last!=interval)
+		{
+			list.set(slot, last);
+			last.setIdSlot(slot);
+		}
+		interval.setIdSlot(-1);
 	}
 	
 	protected void removeInterval(long id)
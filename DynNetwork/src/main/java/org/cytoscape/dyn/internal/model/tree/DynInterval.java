@@ -121,6 +121,38 @@ public interface DynInterval<T> extends Comparable<DynInterval<T>>
 	 * @param isOn
 	 */
 	public void setOn(boolean isOn);
+	
+	/**
+	 * Get the interval tree node {@link DynNode} that contains this interval, or null.
+	 * @return node
+	 */
+	public DynNode<T> getNode();
+	
+	/**
+	 * Get the position of this interval in the interval list of its node.
+	 * @return node slot
+	 */
+	public int getNodeSlot();
+	
+	/**
+	 * Set the interval tree node {@link DynNode} that contains this interval, and the
+	 * position of this interval in the interval list of the node.
+	 * @param node
+	 * @param slot
+	 */
+	public void setNode(DynNode<T> node, int slot);
+	
+	/**
+	 * Get the position of this interval in the interval list of its object id.
+	 * @return id slot
+	 */
+	public int getIdSlot();
+	
+	/**
+	 * Set the position of this interval in the interval list of its object id.
+	 * @param slot
+	 */
+	public void setIdSlot(int slot);
        
 }
 
@@ -0,0 +1,322 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code> DynIntervalArrayTreeImpl </code> implements the interval tree as a static, balanced
+ * augmented tree stored in parallel primitive arrays. Nodes are kept in (start, end) order, so
+ * the node index is also its in-order position, and each node stores its start, end and the 
+ * maximum end below it in <code>double[]</code> arrays, together with the int indices of its 
+ * children and an int payload id into the table of intervals. Identical intervals share the 
+ * same node. Compared to {@link DynIntervalTreeImpl}, queries do not chase object pointers and 
+ * the tree uses a fraction of the memory. Insertions and deletions are buffered and the arrays 
+ * are rebuilt in O(n log n) on the next query, so this implementation is meant for trees that 
+ * are written once and then searched many times. The arrays are published as an immutable 
+ * snapshot, so that searches do not lock the tree and are not affected by concurrent updates.
+ *  
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class DynIntervalArrayTreeImpl<T> implements DynIntervalTree<T>
+{
+	private final Map<Long,List<DynInterval<T>>> intervalMap;
+	private int size;
+	
+	private volatile Snapshot<T> snapshot;
+	
+	/**
+	 * <code> DynIntervalArrayTreeImpl </code> constructor.
+	 */
+	public DynIntervalArrayTreeImpl()
+	{
+		this.intervalMap = new HashMap<Long,List<DynInterval<T>>>();
+	}
+
+	@Override
+	public synchronized void insert(DynInterval<T> interval, long id)
+	{
+		addInterval(id, interval);
+		this.snapshot = null;
+	}
+	
+	@Override
+	public synchronized void insertAll(List<DynInterval<T>> intervals)
+	{
+		for (DynInterval<T> interval : intervals)
+			addInterval(interval.getAttribute().getRow(), interval);
+		this.snapshot = null;
+	}
+
+	@Override
+	public synchronized void remove(DynInterval<T> interval, long id)
+	{
+		if (removeInterval(id, interval))
+			this.snapshot = null;
+	}
+
+	@Override
+	public List<DynInterval<T>> getIntervals()
+	{
+		return new ArrayList<DynInterval<T>>(Arrays.asList(getSnapshot().values));
+	}
+
+	@Override
+	public synchronized List<DynInterval<T>> getIntervals(long id)
+	{
+		if (this.intervalMap.containsKey(id))
+			return this.intervalMap.get(id);
+		else
+			return new ArrayList<DynInterval<T>>();
+	}
+
+	@Override
+	public List<Double> getEventTimeList()
+	{
+		return TimelineIndex.toList(getTimelineIndex().getEventTimes());
+	}
+
+	@Override
+	public List<Double> getEventTimeList(String attName)
+	{
+		return TimelineIndex.toList(getTimelineIndex().getEventTimes(attName));
+	}
+
+	@Override
+	public List<DynInterval<T>> search(DynInterval<T> interval)
+	{
+		Snapshot<T> tree = getSnapshot();
+		List<DynInterval<T>> list = new ArrayList<DynInterval<T>>();
+		double qs = interval.getStart();
+		double qe = interval.getEnd();
+		
+		// In-order traversal, pruning subtrees that end before the query start and 
+		// right subtrees that start after the query end.
+		int[] stack = new int[height(tree.starts.length)];
+		int sp = 0;
+		int k = tree.root;
+		while (k>=0 || sp>0)
+		{
+			while (k>=0 && qs<=tree.maxEnds[k])
+			{
+				stack[sp++] = k;
+				k = tree.left[k];
+			}
+			if (sp==0)
+				break;
+			k = stack[--sp];
+			if (overlaps(tree.starts[k], tree.ends[k], qs, qe))
+				for (int p=tree.payload[k]; p<tree.payload[k+1]; p++)
+					list.add(tree.values[p]);
+			k = (qe>=tree.starts[k]) ? tree.right[k] : -1;
+		}
+		return list;
+	}
+
+	@Override
+	public List<DynInterval<T>> searchNot(DynInterval<T> interval)
+	{
+		Snapshot<T> tree = getSnapshot();
+		List<DynInterval<T>> list = new ArrayList<DynInterval<T>>();
+		double qs = interval.getStart();
+		double qe = interval.getEnd();
+		for (int k=0; k<tree.starts.length; k++)
+			if (!overlaps(tree.starts[k], tree.ends[k], qs, qe))
+				for (int p=tree.payload[k]; p<tree.payload[k+1]; p++)
+					list.add(tree.values[p]);
+		return list;
+	}
+
+	@Override
+	public synchronized TimelineIndex<T> getTimelineIndex()
+	{
+		Snapshot<T> tree = getSnapshot();
+		if (tree.timelineIndex==null)
+			tree.timelineIndex = new TimelineIndex<T>(Arrays.asList(tree.values));
+		return tree.timelineIndex;
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		intervalMap.clear();
+		size = 0;
+		this.snapshot = null;
+	}
+
+	@Override
+	public void print()
+	{
+		Snapshot<T> tree = getSnapshot();
+		StringBuilder string = new StringBuilder();
+		for (int k=0; k<tree.starts.length; k++)
+			string.append("\n node ").append(tree.starts[k]).append(" ").append(tree.ends[k]).append(" ").append(tree.maxEnds[k])
+			.append(" > left ").append(tree.left[k]).append(" right ").append(tree.right[k]).append(" size ").append(tree.payload[k+1]-tree.payload[k]);
+		System.out.println(string.toString());
+	}
+	
+	// The current snapshot, rebuilt if the tree was modified since the last one
+	private Snapshot<T> getSnapshot()
+	{
+		Snapshot<T> tree = this.snapshot;
+		if (tree==null)
+			tree = build();
+		return tree;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private synchronized Snapshot<T> build()
+	{
+		if (this.snapshot!=null)
+			return this.snapshot;
+		
+		List<DynInterval<T>> sorted = new ArrayList<DynInterval<T>>(size);
+		for (List<DynInterval<T>> list : intervalMap.values())
+			sorted.addAll(list);
+		Collections.sort(sorted, new DynIntervalComparator<T>());
+		
+		double[] s = new double[size];
+		double[] e = new double[size];
+		int[] p = new int[size+1];
+		int n = 0;
+		for (int i=0; i<size; i++)
+		{
+			DynInterval<T> interval = sorted.get(i);
+			if (n==0 || s[n-1]!=interval.getStart() || e[n-1]!=interval.getEnd())
+			{
+				s[n] = interval.getStart();
+				e[n] = interval.getEnd();
+				p[n] = i;
+				n++;
+			}
+		}
+		p[n] = size;
+
+		Snapshot<T> tree = new Snapshot<T>(Arrays.copyOf(s, n), Arrays.copyOf(e, n), 
+				Arrays.copyOf(p, n+1), sorted.toArray(new DynInterval[size]));
+		this.snapshot = tree;
+		return tree;
+	}
+	
+	private void addInterval(long id, DynInterval<T> interval)
+	{
+		if (!this.intervalMap.containsKey(id))
+			this.intervalMap.put(id, new ArrayList<DynInterval<T>>());
+		List<DynInterval<T>> list = this.intervalMap.get(id);
+		interval.setIdSlot(list.size());
+		list.add(interval);
+		size++;
+	}
+	
+	// Same as AbstractDynIntervalTree: the last interval of the list takes the position
+	// of the removed one, so that removal is O(1).
+	private boolean removeInterval(long id, DynInterval<T> interval)
+	{
+		List<DynInterval<T>> list = this.intervalMap.get(id);
+		if (list==null)
+			return false;
+		int slot = interval.getIdSlot();
+		if (slot<0 || slot>=list.size() || list.get(slot)!=interval)
+		{
+			slot = -1;
+			for (int i=0; i<list.size() && slot<0; i++)
+				if (list.get(i)==interval)
+					slot = i;
+			if (slot<0)
+				return false;
+		}
+		DynInterval<T> last = list.remove(list.size()-1);
+		if (last!=interval)
+		{
+			list.set(slot, last);
+			last.setIdSlot(slot);
+		}
+		size--;
+		return true;
+	}
+	
+	// Same overlap test as AbstractDynInterval.compareTo, on primitive values
+	private static boolean overlaps(double start, double end, double qStart, double qEnd)
+	{
+		return (start <= qEnd && qStart <= end) &&	
+				((start < qEnd && qStart < end) ||
+				 (qStart == qEnd && (start <= qEnd && qStart < end)) ||
+				 (start == end && (start < qEnd && qStart <= end)) ||
+				 (start == end && qStart == qEnd && start == qEnd));
+	}
+	
+	private static int height(int n)
+	{
+		return 33 - Integer.numberOfLeadingZeros(n);
+	}
+	
+	/**
+	 * The arrays of the tree. They are never modified once built; the timeline 
+	 * index is created lazily under the lock of the tree.
+	 */
+	private static final class Snapshot<T>
+	{
+		private final int root;
+		private final double[] starts;
+		private final double[] ends;
+		private final double[] maxEnds;
+		private final int[] left;
+		private final int[] right;
+		private final int[] payload;
+		private final DynInterval<T>[] values;
+		private TimelineIndex<T> timelineIndex;
+		
+		private Snapshot(double[] starts, double[] ends, int[] payload, DynInterval<T>[] values)
+		{
+			this.starts = starts;
+			this.ends = ends;
+			this.payload = payload;
+			this.values = values;
+			this.maxEnds = new double[starts.length];
+			this.left = new int[starts.length];
+			this.right = new int[starts.length];
+			this.root = build(0, starts.length-1);
+		}
+		
+		private int build(int lo, int hi)
+		{
+			if (lo>hi)
+				return -1;
+			int mid = (lo+hi)>>>1;
+			left[mid] = build(lo, mid-1);
+			right[mid] = build(mid+1, hi);
+			double max = ends[mid];
+			if (left[mid]>=0)
+				max = Math.max(max, maxEnds[left[mid]]);
+			if (right[mid]>=0)
+				max = Math.max(max, maxEnds[right[mid]]);
+			maxEnds[mid] = max;
+			return mid;
+		}
+	}
+
+}
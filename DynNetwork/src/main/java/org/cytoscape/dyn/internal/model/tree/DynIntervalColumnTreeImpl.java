@@ -0,0 +1,286 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.tree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code> DynIntervalColumnTreeImpl </code> implements the interval tree for attribute intervals
+ * as a set of red-black interval trees {@link DynIntervalTreeImpl}, one for each attribute column. 
+ * Column names are interned to an int column id the first time an interval of that column is 
+ * inserted. Searches restricted to one column only visit the intervals of that column, while 
+ * unrestricted searches fan out across all the column trees and merge their results, so that 
+ * intervals are returned in (start, end) order as by a single tree.
+ *  
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class DynIntervalColumnTreeImpl<T> implements DynIntervalTree<T>
+{
+	private final Map<String,Integer> columnIds;
+	private final List<String> columns;
+	private final List<DynIntervalTree<T>> trees;
+	
+	private final Comparator<DynInterval<T>> comparator;
+	private final TimelineIndex<T> emptyIndex;
+	private TimelineIndex<T> timelineIndex;
+	
+	/**
+	 * <code> DynIntervalColumnTreeImpl </code> constructor.
+	 */
+	public DynIntervalColumnTreeImpl()
+	{
+		this.columnIds = new HashMap<String,Integer>();
+		this.columns = new ArrayList<String>();
+		this.trees = new ArrayList<DynIntervalTree<T>>();
+		this.comparator = new DynIntervalComparator<T>();
+		this.emptyIndex = new TimelineIndex<T>(new ArrayList<DynInterval<T>>());
+	}
+	
+	/**
+	 * Get the interned id of the column.
+	 * @param column
+	 * @return column id, or -1 if the column has no intervals
+	 */
+	public synchronized int getColumnId(String column)
+	{
+		Integer columnId = columnIds.get(column);
+		return columnId==null ? -1 : columnId;
+	}
+	
+	/**
+	 * Get the column name of the interned id.
+	 * @param columnId
+	 * @return column
+	 */
+	public synchronized String getColumn(int columnId)
+	{
+		return columns.get(columnId);
+	}
+	
+	/**
+	 * Get the number of columns.
+	 * @return number of columns
+	 */
+	public synchronized int getColumnCount()
+	{
+		return columns.size();
+	}
+
+	@Override
+	public synchronized void insert(DynInterval<T> interval, long id)
+	{
+		getTree(interval.getAttribute().getColumn()).insert(interval, id);
+		this.timelineIndex = null;
+	}
+
+	@Override
+	public synchronized void insertAll(List<DynInterval<T>> intervals)
+	{
+		Map<DynIntervalTree<T>,List<DynInterval<T>>> map = new HashMap<DynIntervalTree<T>,List<DynInterval<T>>>();
+		for (DynInterval<T> interval : intervals)
+		{
+			DynIntervalTree<T> tree = getTree(interval.getAttribute().getColumn());
+			if (!map.containsKey(tree))
+				map.put(tree, new ArrayList<DynInterval<T>>());
+			map.get(tree).add(interval);
+		}
+		for (Map.Entry<DynIntervalTree<T>,List<DynInterval<T>>> entry : map.entrySet())
+			entry.getKey().insertAll(entry.getValue());
+		this.timelineIndex = null;
+	}
+
+	@Override
+	public synchronized void remove(DynInterval<T> interval, long id)
+	{
+		int columnId = getColumnId(interval.getAttribute().getColumn());
+		if (columnId>=0)
+			trees.get(columnId).remove(interval, id);
+		this.timelineIndex = null;
+	}
+
+	@Override
+	public synchronized List<DynInterval<T>> getIntervals()
+	{
+		List<List<DynInterval<T>>> lists = new ArrayList<List<DynInterval<T>>>(trees.size());
+		for (DynIntervalTree<T> tree : trees)
+			lists.add(tree.getIntervals());
+		return merge(lists);
+	}
+
+	@Override
+	public synchronized List<DynInterval<T>> getIntervals(long id)
+	{
+		List<DynInterval<T>> list = new ArrayList<DynInterval<T>>();
+		for (DynIntervalTree<T> tree : trees)
+			list.addAll(tree.getIntervals(id));
+		return list;
+	}
+
+	@Override
+	public List<Double> getEventTimeList()
+	{
+		return TimelineIndex.toList(getTimelineIndex().getEventTimes());
+	}
+
+	@Override
+	public List<Double> getEventTimeList(String attName)
+	{
+		return TimelineIndex.toList(getTimelineIndex(attName).getEventTimes());
+	}
+
+	@Override
+	public synchronized List<DynInterval<T>> search(DynInterval<T> interval)
+	{
+		List<List<DynInterval<T>>> lists = new ArrayList<List<DynInterval<T>>>(trees.size());
+		for (DynIntervalTree<T> tree : trees)
+			lists.add(tree.search(interval));
+		return merge(lists);
+	}
+	
+	/**
+	 * Search overlapping intervals of the given column only.
+	 * @param interval
+	 * @param column
+	 * @return list of overlapping intervals with the given interval.
+	 */
+	public synchronized List<DynInterval<T>> search(DynInterval<T> interval, String column)
+	{
+		return search(interval, getColumnId(column));
+	}
+	
+	/**
+	 * Search overlapping intervals of the given column id only.
+	 * @param interval
+	 * @param columnId
+	 * @return list of overlapping intervals with the given interval.
+	 */
+	public synchronized List<DynInterval<T>> search(DynInterval<T> interval, int columnId)
+	{
+		DynIntervalTree<T> tree = getTree(columnId);
+		if (tree==null)
+			return new ArrayList<DynInterval<T>>();
+		return tree.search(interval);
+	}
+
+	@Override
+	public synchronized List<DynInterval<T>> searchNot(DynInterval<T> interval)
+	{
+		List<List<DynInterval<T>>> lists = new ArrayList<List<DynInterval<T>>>(trees.size());
+		for (DynIntervalTree<T> tree : trees)
+			lists.add(tree.searchNot(interval));
+		return merge(lists);
+	}
+
+	@Override
+	public synchronized TimelineIndex<T> getTimelineIndex()
+	{
+		if (this.timelineIndex==null)
+			this.timelineIndex = new TimelineIndex<T>(getIntervals());
+		return this.timelineIndex;
+	}
+	
+	/**
+	 * Get the timeline index of the intervals of the given column only.
+	 * @param column
+	 * @return timeline index
+	 */
+	public synchronized TimelineIndex<T> getTimelineIndex(String column)
+	{
+		DynIntervalTree<T> tree = getTree(getColumnId(column));
+		if (tree==null)
+			return emptyIndex;
+		return tree.getTimelineIndex();
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		for (DynIntervalTree<T> tree : trees)
+			tree.clear();
+		this.timelineIndex = null;
+	}
+
+	@Override
+	public synchronized void print()
+	{
+		for (int i=0; i<trees.size(); i++)
+		{
+			System.out.println("\n column " + getColumn(i));
+			trees.get(i).print();
+		}
+	}
+	
+	private synchronized DynIntervalTree<T> getTree(int columnId)
+	{
+		if (columnId<0 || columnId>=trees.size())
+			return null;
+		return trees.get(columnId);
+	}
+	
+	// Merge the sorted lists of the columns pairwise, in O(k log c) for k intervals 
+	// and c columns. Intervals with the same start and end keep the column order.
+	private List<DynInterval<T>> merge(List<List<DynInterval<T>>> lists)
+	{
+		if (lists.isEmpty())
+			return new ArrayList<DynInterval<T>>();
+		while (lists.size()>1)
+		{
+			List<List<DynInterval<T>>> merged = new ArrayList<List<DynInterval<T>>>((lists.size()+1)/2);
+			for (int i=0; i<lists.size(); i+=2)
+				merged.add(i+1<lists.size() ? merge(lists.get(i), lists.get(i+1)) : lists.get(i));
+			lists = merged;
+		}
+		return lists.get(0);
+	}
+	
+	private List<DynInterval<T>> merge(List<DynInterval<T>> a, List<DynInterval<T>> b)
+	{
+		List<DynInterval<T>> list = new ArrayList<DynInterval<T>>(a.size()+b.size());
+		int i = 0;
+		int j = 0;
+		while (i<a.size() && j<b.size())
+			list.add(comparator.compare(a.get(i), b.get(j))<=0 ? a.get(i++) : b.get(j++));
+		while (i<a.size())
+			list.add(a.get(i++));
+		while (j<b.size())
+			list.add(b.get(j++));
+		return list;
+	}
+	
+	private DynIntervalTree<T> getTree(String column)
+	{
+		Integer columnId = columnIds.get(column);
+		if (columnId==null)
+		{
+			columnId = trees.size();
+			columnIds.put(column, columnId);
+			columns.add(column);
+			trees.add(new DynIntervalTreeImpl<T>());
+		}
+		return trees.get(columnId);
+	}
+
+}
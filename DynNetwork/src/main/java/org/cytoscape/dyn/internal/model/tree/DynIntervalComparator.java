@@ -0,0 +1,41 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.tree;
+
+import java.util.Comparator;
+
+/**
+ * <code> DynIntervalComparator </code> orders time intervals {@link DynInterval} by
+ * start time and then by end time, which is the order of the nodes in the interval tree.
+ *  
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class DynIntervalComparator<T> implements Comparator<DynInterval<T>>
+{
+	@Override
+	public int compare(DynInterval<T> a, DynInterval<T> b)
+	{
+		int c = Double.compare(a.getStart(), b.getStart());
+		return c!=0 ? c : Double.compare(a.getEnd(), b.getEnd());
+	}
+	
+}
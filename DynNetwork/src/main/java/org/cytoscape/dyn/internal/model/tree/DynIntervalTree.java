@@ -23,7 +23,8 @@ import java.util.List;
 
 /**
  * <code> DynIntervalTree </code> is the interface for the red-black 
- * interval tree.
+ * interval tree. The root node is only available from the trees made of 
+ * {@link DynNode}s, see {@link AbstractDynIntervalTree#getRoot()}.
  *  
  * @author Sabina Sara Pfister
  *
@@ -31,18 +32,21 @@ import java.util.List;
  */
 public interface DynIntervalTree<T>
 {
-    /**
-     * Returns root of the tree.
-     * @return root
-     */
-	public DynNode<T> getRoot();
-	
     /**
      * Insert new interval to the tree.
 	 * @param interval
 	 * @param object id
 	 */
 	public void insert(DynInterval<T> interval, long id);
+	
+    /**
+     * Insert a list of intervals to the tree at once. The intervals are sorted and the 
+     * tree is built bottom-up, which is much faster than inserting them one by one, unless
+     * the list is small compared to the tree. The object id of each interval is the row 
+     * of its attribute.
+	 * @param intervals
+	 */
+	public void insertAll(List<DynInterval<T>> intervals);
    
     /**
      * Removes interval from the tree if exists.
@@ -65,13 +69,14 @@ public interface DynIntervalTree<T>
 	public List<DynInterval<T>> getIntervals(long id);
 	
 	/**
-	 *  Get a list of times at which events occur.
+	 * Get the sorted list of times at which events occur. The times are read 
+	 * from the cached timeline index {@link #getTimelineIndex()}.
 	 * @return time list
 	 */
 	public List<Double> getEventTimeList();
 	
 	/**
-	 * Get a list of times at which events occur filtered by attribute name.
+	 * Get the sorted list of times at which events occur filtered by attribute name.
 	 * @param attName
 	 * @return time list
 	 */
@@ -91,6 +96,13 @@ public interface DynIntervalTree<T>
 	 */
 	public List<DynInterval<T>> searchNot(DynInterval<T> interval);
 
+	/**
+	 * Get the index of the intervals sorted by start and end time. The index is cached
+	 * and rebuilt only after the tree has been modified.
+	 * @return timeline index
+	 */
+	public TimelineIndex<T> getTimelineIndex();
+
     /**
      * Clear interval tree.
 	 */
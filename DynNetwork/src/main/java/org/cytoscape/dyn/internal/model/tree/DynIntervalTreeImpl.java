@@ -19,6 +19,10 @@
 
 package org.cytoscape.dyn.internal.model.tree;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * <code> DynIntervalTreeImpl </code> implements the interval tree for fast searching of intervals 
  * in a given time range. An interval tree is a red-black tree that maintains a dynamic set of 
@@ -26,7 +30,8 @@ package org.cytoscape.dyn.internal.model.tree;
  * nodes do not contain data, and reference to a dummy sentinel node (nil). The root is also a nil 
  * sentinel node, whose left reference points to the network root. <code> DynIntervalTreeImpl </code> 
  * guarantees O(log n) insertion and deletion of elements. The code was extended to be able to deal
- * with identical intervals.
+ * with identical intervals. Large sets of intervals can be bulk loaded in O(n log n): the intervals 
+ * are sorted and the balanced tree is built bottom-up without rotations.
  *  
  * @author Sabina Sara Pfister
  *
@@ -85,6 +90,51 @@ public final class DynIntervalTreeImpl<T> extends AbstractDynIntervalTree<T>
 		insertFixUp(z, dir);
 	}
 		
+	protected void build(List<DynInterval<T>> intervals)
+	{
+		Collections.sort(intervals, new DynIntervalComparator<T>());
+
+		// Identical intervals share the same node
+		List<DynNode<T>> nodes = new ArrayList<DynNode<T>>();
+		DynNode<T> last = null;
+		for (DynInterval<T> interval : intervals)
+		{
+			if (last!=null && last.getStart()==interval.getStart() && last.getEnd()==interval.getEnd())
+				last.addInterval(interval);
+			else
+			{
+				last = new DynNode<T>(interval, nil);
+				nodes.add(last);
+			}
+		}
+
+		if (nodes.isEmpty())
+		{
+			clear();
+			return;
+		}
+
+		// All nil leaves are at depth h-1 or h, so coloring the last level red (if it is not 
+		// full) gives the same black height on every path.
+		int n = nodes.size();
+		int h = 32 - Integer.numberOfLeadingZeros(n);
+		int redDepth = (n == (1<<h)-1) ? -1 : h-1;
+		this.root.setLeft(build(nodes, 0, n-1, 0, redDepth));
+	}
+	
+	private DynNode<T> build(List<DynNode<T>> nodes, int lo, int hi, int depth, int redDepth)
+	{
+		if (lo>hi)
+			return nil;
+		int mid = (lo+hi)>>>1;
+		DynNode<T> z = nodes.get(mid);
+		z.setLeft(build(nodes, lo, mid-1, depth+1, redDepth));
+		z.setRight(build(nodes, mid+1, hi, depth+1, redDepth));
+		z.isBlack(depth!=redDepth);
+		z.setMax(max(z.getLeft(), z.getRight(), z));
+		return z;
+	}
+		
 	private void insertFixUp(DynNode<T> z, int dir)
 	{
 		z.isBlack(false);
@@ -113,69 +163,91 @@ public final class DynIntervalTreeImpl<T> extends AbstractDynIntervalTree<T>
 	
 	protected void remove(DynNode<T> z)
 	{
-		z.setMax(Double.NEGATIVE_INFINITY);
-		for (DynNode<T> i = z.getParent(); i != root; i = i.getParent())
-			i.setMax(max(i.getLeft(), i.getRight()));
-
-		DynNode<T> y;
+		DynNode<T> y = z;
 		DynNode<T> x;
+		DynNode<T> lowest;
+		boolean isBlack = y.isBlack();
 
-		if (z.getLeft().isLeaf() || z.getRight().isLeaf())
-			y = z;
-		else
-			y = this.successor(z);
-		if (y.getLeft().isLeaf())
-			x = y.getRight();
-		else
-			x = y.getLeft();
-		x.setParent(y.getParent());
-		if (root == x.getParent())
-			root.setLeft(x);
+		if (z.getLeft().isLeaf())
+		{
+			x = z.getRight();
+			lowest = z.getParent();
+			transplant(z, x);
+		}
+		else if (z.getRight().isLeaf())
+		{
+			x = z.getLeft();
+			lowest = z.getParent();
+			transplant(z, x);
+		}
 		else
-			y.getParent().setChildren(getParentDirection(y),x);
-		if (y!=z)
 		{
-			if (y.isBlack())
-				removeFixUp(x);
+			// The successor takes the place (and color) of z
+			y = this.getTreeMinimum(z.getRight());
+			isBlack = y.isBlack();
+			x = y.getRight();
+			if (y.getParent()==z)
+				lowest = y;
+			else
+			{
+				lowest = y.getParent();
+				transplant(y, x);
+				y.setRight(z.getRight());
+			}
+			transplant(z, y);
 			y.setLeft(z.getLeft());
-			y.setRight(z.getRight());
 			y.isBlack(z.isBlack());
-			z.getParent().setChildren(getParentDirection(z),y);
 		}
-		else if (y.isBlack())
-			removeFixUp(x);
+		
+		// Update the maximum end on the path from the lowest changed node to the root
+		for (DynNode<T> i = lowest; i != root; i = i.getParent())
+			i.setMax(max(i.getLeft(), i.getRight(), i));
+		
+		if (isBlack)
+			removeFixUp(x, lowest);
+	}
+	
+	private void transplant(DynNode<T> u, DynNode<T> v)
+	{
+		u.getParent().setChildren(getThisDirection(u, 0), v);
 	}
 	
-	private void removeFixUp(DynNode<T> x)
+	// The parent of x is passed explicitly, since x can be the shared nil sentinel whose 
+	// parent reference is overwritten by the rotations.
+	private void removeFixUp(DynNode<T> x, DynNode<T> parent)
 	{
 		int dir = 0;
 		while (x!=root.getLeft() && x.isBlack())
 		{
-			dir = getParentDirection(x);
-			DynNode<T> w = x.getParent().getChildren(1-dir);
+			dir = (x==parent.getLeft())?0:1;
+			DynNode<T> w = parent.getChildren(1-dir);
 			if (!w.isBlack())
 			{
 				w.isBlack(true);
-				x.getParent().isBlack(false);
-				rotate(x.getParent(),1-dir);
-				w = x.getParent().getChildren(1-dir);
+				parent.isBlack(false);
+				rotate(parent,dir);
+				w = parent.getChildren(1-dir);
 			}
 			if (w.getChildren(dir).isBlack() && w.getChildren(1-dir).isBlack())
 			{
 				w.isBlack(false);
-				x = x.getParent();
+				x = parent;
+				parent = x.getParent();
 			} 
 			else {
 				if (w.getChildren(1-dir).isBlack()) {
 					w.getChildren(dir).isBlack(true);
 					w.isBlack(false);
-					rotate(w,dir);
-					w = x.getParent().getChildren(1-dir);
+					rotate(w,1-dir);
+					w = parent.getChildren(1-dir);
 				}
-				w.isBlack(x.getParent().isBlack());
-				x.getParent().isBlack(true);
+				// rotate() recolors the pivot black and the old root red, so set 
+				// the colors of the sibling and the parent after the rotation
+				boolean isParentBlack = parent.isBlack();
 				w.getChildren(1-dir).isBlack(true);
-				rotate(x.getParent(),dir);
+				rotate(parent,dir);
+				w.isBlack(isParentBlack);
+				parent.isBlack(true);
 				x = root.getLeft();
 			}
 		}
@@ -204,7 +276,7 @@ public final class DynIntervalTreeImpl<T> extends AbstractDynIntervalTree<T>
     private DynNode<T> getTreeMinimum(DynNode<T> root)
     {
     	DynNode<T> left = root;
-    	while (!root.getLeft().isLeaf())
+    	while (!left.getLeft().isLeaf())
     		left = left.getLeft();
     	return left;
     }
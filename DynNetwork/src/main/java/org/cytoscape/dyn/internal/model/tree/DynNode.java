@@ -62,8 +62,8 @@ public final class DynNode<T>
 		this.parent = nil;
 		this.children[0] = nil;
 		this.children[1] = nil;
-		this.intervalList.add(interval);
 		this.max = interval.getEnd();
+		addInterval(interval);
 	}
 
 	/**
@@ -85,19 +85,53 @@ public final class DynNode<T>
 	}
 
 	/**
-	 * Add time interval to interval tree.
+	 * Add time interval to this node.
 	 */
 	public void addInterval(DynInterval<T> interval)
 	{
+		interval.setNode(this, intervalList.size());
 		this.intervalList.add(interval);
 	}
 	
 	/**
-	 * Add time interval to interval tree.
+	 * Remove time interval from this node. The last interval of the list takes its 
+	 * position, so that removal is O(1).
 	 */
 	public void removeInterval(DynInterval<T> interval)
 	{
-		intervalList.remove(interval);
+		int slot = interval.getNodeSlot();
+		if (interval.getNode()!=this || slot<0 || slot>=intervalList.size() || intervalList.get(slot)!=interval)
+			slot = indexOf(interval);
+		if (slot<0)
+			return;
+		DynInterval<T> last = intervalList.remove(intervalList.size()-1);
+		if (last!=interval)
+		{
+			intervalList.set(slot, last);
+			last.setNode(this, slot);
+		}
+		interval.setNode(null, -1);
+	}
+	
+	/**
+	 * Return if this node contains the interval.
+	 * @param interval
+	 * @return boolean
+	 */
+	public boolean containsInterval(DynInterval<T> interval)
+	{
+		int slot = interval.getNodeSlot();
+		if (interval.getNode()==this && slot>=0 && slot<intervalList.size() && intervalList.get(slot)==interval)
+			return true;
+		return indexOf(interval)>=0;
+	}
+	
+	private int indexOf(DynInterval<T> interval)
+	{
+		for (int i=0; i<intervalList.size(); i++)
+			if (intervalList.get(i)==interval)
+				return i;
+		return -1;
 	}
 
 	/**
@@ -310,13 +344,14 @@ public final class DynNode<T>
 	{
 		if (!this.isLeaf() && interval.getStart()<=this.getMax())
 		{
-			this.children[0].searchThisNode(interval);
+			DynNode<T> node = this.children[0].searchThisNode(interval);
+			if (node!=null)
+				return node;
 			if (this.intervalList.get(0).getStart()==interval.getStart() && this.intervalList.get(0).getEnd()==interval.getEnd())
-				for (DynInterval<T> i : this.intervalList)	
-					if (i==interval)
-						return this;
+				if (this.containsInterval(interval))
+					return this;
 			if (interval.getEnd()>=this.intervalList.get(0).getStart())
-				this.children[1].searchThisNode(interval);
+				return this.children[1].searchThisNode(interval);
 		}
 		return null;
 	}
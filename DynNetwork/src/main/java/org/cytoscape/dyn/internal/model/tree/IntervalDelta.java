@@ -0,0 +1,145 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <code> IntervalDelta </code> keeps track of the set of intervals that are currently
+ * visible and computes the difference with a new set of intervals returned by a search
+ * in the interval tree {@link DynIntervalTree}. Intervals that disappear are turned off,
+ * intervals that appear are turned on. Since intervals are compared by identity, the
+ * difference is computed with identity hash sets in O(|previous|+|current|).
+ * A delta that does not set the flags keeps its on/off state to itself, so that
+ * several deltas can follow the same intervals at different times; its callers ask
+ * {@link #contains(DynInterval)} instead of {@link DynInterval#isOn()}.
+ *
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class IntervalDelta<T>
+{
+	private final boolean setsFlags;
+	private Set<DynInterval<T>> currentSet;
+
+	/**
+	 * <code> IntervalDelta </code> constructor.
+	 */
+	public IntervalDelta()
+	{
+		this(true);
+	}
+	
+	/**
+	 * <code> IntervalDelta </code> constructor.
+	 * @param setsFlags - if the intervals are turned on and off with {@link DynInterval#setOn(boolean)}
+	 */
+	public IntervalDelta(boolean setsFlags)
+	{
+		this.setsFlags = setsFlags;
+		this.currentSet = newIdentitySet(0);
+	}
+
+	/**
+	 * Replace the current intervals with the given list and return the intervals
+	 * that were removed (turned off) followed by the intervals that were added
+	 * (turned on).
+	 * @param list
+	 * @return changed interval list
+	 */
+	public List<DynInterval<T>> update(List<DynInterval<T>> list)
+	{
+		Set<DynInterval<T>> set = newIdentitySet(list.size());
+		set.addAll(list);
+
+		List<DynInterval<T>> diff = new ArrayList<DynInterval<T>>();
+		for (DynInterval<T> i : currentSet)
+			if (!set.contains(i))
+			{
+				diff.add(i);
+				if (setsFlags)
+					i.setOn(false);
+			}
+		for (DynInterval<T> i : list)
+			if (!currentSet.contains(i))
+			{
+				diff.add(i);
+				if (setsFlags)
+					i.setOn(true);
+			}
+
+		this.currentSet = set;
+		return diff;
+	}
+	
+	/**
+	 * Turn a single interval on or off, adding it to or removing it from the
+	 * current intervals.
+	 * @param interval
+	 * @param isOn
+	 */
+	public void set(DynInterval<T> interval, boolean isOn)
+	{
+		if (setsFlags)
+			interval.setOn(isOn);
+		if (isOn)
+			currentSet.add(interval);
+		else
+			currentSet.remove(interval);
+	}
+
+	/**
+	 * Get the number of current intervals.
+	 * @return size
+	 */
+	public int size()
+	{
+		return currentSet.size();
+	}
+
+	/**
+	 * Return if the interval is currently visible.
+	 * @param interval
+	 * @return boolean
+	 */
+	public boolean contains(DynInterval<T> interval)
+	{
+		return currentSet.contains(interval);
+	}
+
+	/**
+	 * Clear the current intervals.
+	 */
+	public void clear()
+	{
+		this.currentSet = newIdentitySet(0);
+	}
+
+	private static <T> Set<DynInterval<T>> newIdentitySet(int size)
+	{
+		return Collections.newSetFromMap(new IdentityHashMap<DynInterval<T>,Boolean>(Math.max(32, size)));
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code> TimelineCursor </code> keeps track of the intervals of an interval tree 
+ * {@link DynIntervalTree} that are visible at the current time point. When the time moves 
+ * sequentially, e.g. during playback, only the intervals that start or end between the old 
+ * and the new time are visited, using the sorted event arrays of {@link TimelineIndex}. 
+ * For random jumps, time ranges, or after the tree was modified, the cursor falls back to 
+ * a tree search and a full difference {@link IntervalDelta}. A cursor that does not set the 
+ * flags of the intervals can be moved independently of the view; its callers ask 
+ * {@link #contains(DynInterval)} instead of {@link DynInterval#isOn()}.
+ *  
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class TimelineCursor<T>
+{
+	private final DynIntervalTree<T> tree;
+	private final IntervalDelta<T> delta;
+	
+	private TimelineIndex<T> index;
+	private double time;
+	
+	/**
+	 * <code> TimelineCursor </code> constructor.
+	 * @param tree
+	 */
+	public TimelineCursor(DynIntervalTree<T> tree)
+	{
+		this(tree, true);
+	}
+	
+	/**
+	 * <code> TimelineCursor </code> constructor.
+	 * @param tree
+	 * @param setsFlags - if the intervals are turned on and off with {@link DynInterval#setOn(boolean)}
+	 */
+	public TimelineCursor(DynIntervalTree<T> tree, boolean setsFlags)
+	{
+		this.tree = tree;
+		this.delta = new IntervalDelta<T>(setsFlags);
+		this.time = Double.NaN;
+	}
+	
+	/**
+	 * Move the cursor to the given interval and return the intervals that were turned 
+	 * off or on.
+	 * @param interval
+	 * @return changed interval list
+	 */
+	public List<DynInterval<T>> searchChanged(DynInterval<T> interval)
+	{
+		TimelineIndex<T> current = tree.getTimelineIndex();
+		boolean isPoint = interval.getStart()==interval.getEnd();
+		
+		if (isPoint && current==index && !Double.isNaN(time) && isSequential(time, interval.getStart()))
+		{
+			// Turned off intervals come first, as returned by IntervalDelta
+			List<DynInterval<T>> changedList = new ArrayList<DynInterval<T>>();
+			List<DynInterval<T>> onList = new ArrayList<DynInterval<T>>();
+			for (DynInterval<T> i : index.getChanged(time, interval.getStart()))
+				if (TimelineIndex.isVisible(i, interval.getStart()))
+				{
+					delta.set(i, true);
+					onList.add(i);
+				}
+				else
+				{
+					delta.set(i, false);
+					changedList.add(i);
+				}
+			changedList.addAll(onList);
+			this.time = interval.getStart();
+			return changedList;
+		}
+		
+		List<DynInterval<T>> changedList = delta.update(tree.search(interval));
+		this.index = current;
+		this.time = isPoint ? interval.getStart() : Double.NaN;
+		return changedList;
+	}
+	
+	/**
+	 * Return if the interval is visible at the current position of the cursor.
+	 * @param interval
+	 * @return boolean
+	 */
+	public boolean contains(DynInterval<T> interval)
+	{
+		return delta.contains(interval);
+	}
+	
+	/**
+	 * Get the number of visible intervals.
+	 * @return size
+	 */
+	public int size()
+	{
+		return delta.size();
+	}
+	
+	/**
+	 * Clear the cursor.
+	 */
+	public void clear()
+	{
+		this.delta.clear();
+		this.index = null;
+		this.time = Double.NaN;
+	}
+	
+	// A move is sequential if visiting the intervals that start or end in between 
+	// is cheaper than searching the tree and comparing both visible sets.
+	private boolean isSequential(double from, double to)
+	{
+		return index.countCandidates(from, to) <= 2*delta.size()+1;
+	}
+	
+}
@@ -0,0 +1,257 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.model.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code> TimelineIndex </code> is an immutable index of the intervals of an interval tree
+ * {@link DynIntervalTree}, sorted once by start time and once by end time. It is used by
+ * {@link TimelineCursor} to find the intervals that are turned on or off when the time 
+ * moves from one point to the next in O(k + log n), where k is the number of intervals 
+ * starting or ending in between. The index also provides the sorted and deduplicated
+ * event times of the tree, optionally restricted to one attribute column, which are
+ * computed once and then cached.
+ *  
+ * @author Sabina Sara Pfister
+ *
+ * @param <T>
+ */
+public final class TimelineIndex<T>
+{
+	private final List<DynInterval<T>> byStart;
+	private final List<DynInterval<T>> byEnd;
+	private final double[] starts;
+	private final double[] ends;
+	
+	private double[] eventTimes;
+	private final Map<String,double[]> columnEventTimes;
+	
+	/**
+	 * <code> TimelineIndex </code> constructor.
+	 * @param intervals
+	 */
+	public TimelineIndex(List<DynInterval<T>> intervals)
+	{
+		this.byStart = new ArrayList<DynInterval<T>>(intervals);
+		this.byEnd = new ArrayList<DynInterval<T>>(intervals);
+		Collections.sort(byStart, new DynIntervalComparator<T>());
+		Collections.sort(byEnd, new Comparator<DynInterval<T>>()
+		{
+			@Override
+			public int compare(DynInterval<T> a, DynInterval<T> b)
+			{
+				return Double.compare(a.getEnd(), b.getEnd());
+			}
+		});
+		
+		this.starts = new double[byStart.size()];
+		this.ends = new double[byEnd.size()];
+		for (int i=0; i<starts.length; i++)
+		{
+			starts[i] = byStart.get(i).getStart();
+			ends[i] = byEnd.get(i).getEnd();
+		}
+		
+		this.columnEventTimes = new HashMap<String,double[]>();
+	}
+	
+	/**
+	 * Get the sorted times at which events occur, without duplicates and infinite values. 
+	 * The returned array is shared and must not be modified.
+	 * @return event times
+	 */
+	public synchronized double[] getEventTimes()
+	{
+		if (eventTimes==null)
+			eventTimes = merge(starts, ends);
+		return eventTimes;
+	}
+	
+	/**
+	 * Get the sorted times at which events occur for the given attribute column, without 
+	 * duplicates and infinite values. The returned array is shared and must not be modified.
+	 * @param attName
+	 * @return event times
+	 */
+	public synchronized double[] getEventTimes(String attName)
+	{
+		double[] times = columnEventTimes.get(attName);
+		if (times==null)
+		{
+			double[] s = new double[starts.length];
+			double[] e = new double[ends.length];
+			int sSize = 0;
+			int eSize = 0;
+			for (int i=0; i<starts.length; i++)
+			{
+				if (byStart.get(i).getAttribute().getColumn().equals(attName))
+					s[sSize++] = starts[i];
+				if (byEnd.get(i).getAttribute().getColumn().equals(attName))
+					e[eSize++] = ends[i];
+			}
+			times = merge(Arrays.copyOf(s, sSize), Arrays.copyOf(e, eSize));
+			columnEventTimes.put(attName, times);
+		}
+		return times;
+	}
+	
+	/**
+	 * Get the number of intervals that start or end between the two time points. It is
+	 * an upper bound of the number of intervals that change when moving between them.
+	 * @param from
+	 * @param to
+	 * @return number of candidate intervals
+	 */
+	public int countCandidates(double from, double to)
+	{
+		double lo = Math.min(from, to);
+		double hi = Math.max(from, to);
+		return (upperBound(starts, hi)-upperBound(starts, lo)) + (upperBound(ends, hi)-lowerBound(ends, lo));
+	}
+	
+	/**
+	 * Get the intervals whose visibility at time <code>to</code> differs from their 
+	 * visibility at time <code>from</code>.
+	 * @param from
+	 * @param to
+	 * @return changed interval list
+	 */
+	public List<DynInterval<T>> getChanged(double from, double to)
+	{
+		double lo = Math.min(from, to);
+		double hi = Math.max(from, to);
+		List<DynInterval<T>> list = new ArrayList<DynInterval<T>>();
+		
+		// Intervals starting in (lo,hi] 
+		for (int i=upperBound(starts, lo); i<starts.length && starts[i]<=hi; i++)
+		{
+			DynInterval<T> interval = byStart.get(i);
+			if (isVisible(interval, from)!=isVisible(interval, to))
+				list.add(interval);
+		}
+		
+		// Intervals ending in [lo,hi], unless already visited above
+		for (int i=lowerBound(ends, lo); i<ends.length && ends[i]<=hi; i++)
+		{
+			DynInterval<T> interval = byEnd.get(i);
+			if (!(interval.getStart()>lo && interval.getStart()<=hi) && isVisible(interval, from)!=isVisible(interval, to))
+				list.add(interval);
+		}
+		return list;
+	}
+	
+	/**
+	 * Get the number of indexed intervals.
+	 * @return size
+	 */
+	public int size()
+	{
+		return starts.length;
+	}
+	
+	/**
+	 * Return if the interval overlaps the time point, with the same semantic of
+	 * {@link AbstractDynInterval#compareTo} for the interval [time, time].
+	 * @param interval
+	 * @param time
+	 * @return boolean
+	 */
+	public static <T> boolean isVisible(DynInterval<T> interval, double time)
+	{
+		double start = interval.getStart();
+		double end = interval.getEnd();
+		return (start<=time && time<end) || (start==time && end==time);
+	}
+	
+	/**
+	 * Merge two sorted arrays of times into a sorted array without duplicates and 
+	 * infinite values.
+	 * @param a
+	 * @param b
+	 * @return merged times
+	 */
+	public static double[] merge(double[] a, double[] b)
+	{
+		double[] times = new double[a.length+b.length];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i<a.length || j<b.length)
+		{
+			double t = (j>=b.length || (i<a.length && a[i]<=b[j])) ? a[i++] : b[j++];
+			if (!Double.isInfinite(t) && (size==0 || times[size-1]!=t))
+				times[size++] = t;
+		}
+		return Arrays.copyOf(times, size);
+	}
+	
+	/**
+	 * Convert an array of times to a list.
+	 * @param times
+	 * @return time list
+	 */
+	public static List<Double> toList(double[] times)
+	{
+		List<Double> timeList = new ArrayList<Double>(times.length);
+		for (double t : times)
+			timeList.add(t);
+		return timeList;
+	}
+	
+	// First index with a[i] > key
+	private static int upperBound(double[] a, double key)
+	{
+		int lo = 0;
+		int hi = a.length;
+		while (lo<hi)
+		{
+			int mid = (lo+hi)>>>1;
+			if (a[mid]<=key)
+				lo = mid+1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+	
+	// First index with a[i] >= key
+	private static int lowerBound(double[] a, double key)
+	{
+		int lo = 0;
+		int hi = a.length;
+		while (lo<hi)
+		{
+			int mid = (lo+hi)>>>1;
+			if (a[mid]<key)
+				lo = mid+1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+	
+}
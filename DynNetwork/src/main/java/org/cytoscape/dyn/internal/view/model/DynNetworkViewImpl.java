@@ -19,13 +19,13 @@
 
 package org.cytoscape.dyn.internal.view.model;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.cytoscape.dyn.internal.model.DynNetwork;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.model.CyNetworkView;
@@ -54,11 +54,11 @@ public final class DynNetworkViewImpl<T> implements DynNetworkView<T>
 	private int visibleNodes;
 	private int visibleEdges;
 	
-	private List<DynInterval<T>> currentNodes;
-	private List<DynInterval<T>> currentEdges;
-	private List<DynInterval<T>> currentGraphsAttr;
-	private List<DynInterval<T>> currentNodesAttr;
-	private List<DynInterval<T>> currentEdgesAttr;
+	private final TimelineCursor<T> currentNodes;
+	private final TimelineCursor<T> currentEdges;
+	private final TimelineCursor<T> currentGraphsAttr;
+	private final TimelineCursor<T> currentNodesAttr;
+	private final TimelineCursor<T> currentEdgesAttr;
 	
 	private double currentTime;
 
@@ -76,11 +76,11 @@ public final class DynNetworkViewImpl<T> implements DynNetworkView<T>
 		this.visibleNodes = 0;
 		this.visibleEdges = 0;
 		
-		this.currentNodes = new ArrayList<DynInterval<T>>();
-		this.currentEdges = new ArrayList<DynInterval<T>>();
-		this.currentGraphsAttr = new ArrayList<DynInterval<T>>();
-		this.currentNodesAttr = new ArrayList<DynInterval<T>>();
-		this.currentEdgesAttr = new ArrayList<DynInterval<T>>();
+		this.currentNodes = dynNetwork.getNodeTimelineCursor();
+		this.currentEdges = dynNetwork.getEdgeTimelineCursor();
+		this.currentGraphsAttr = dynNetwork.getGraphAttrTimelineCursor();
+		this.currentNodesAttr = dynNetwork.getNodeAttrTimelineCursor();
+		this.currentEdgesAttr = dynNetwork.getEdgeAttrTimelineCursor();
 		
 		this.nodeDummyValue = new HashMap<CyNode,Integer>();
 		this.edgeDummyValue = new HashMap<CyEdge,Integer>();
@@ -101,48 +101,35 @@ public final class DynNetworkViewImpl<T> implements DynNetworkView<T>
 	@Override
 	public List<DynInterval<T>> searchChangedNodes(DynInterval<T> interval)
 	{
-		List<DynInterval<T>> tempList = dynNetwork.searchNodes(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentNodes, tempList);
-		this.visibleNodes = tempList.size();
-		currentNodes = tempList;
+		List<DynInterval<T>> changedList = currentNodes.searchChanged(interval);
+		this.visibleNodes = currentNodes.size();
 		return changedList;
 	}
 
 	@Override
 	public List<DynInterval<T>> searchChangedEdges(DynInterval<T> interval)
 	{
-		List<DynInterval<T>> tempList = dynNetwork.searchEdges(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentEdges, tempList);
-		this.visibleEdges = tempList.size();
-		currentEdges = tempList;
+		List<DynInterval<T>> changedList = currentEdges.searchChanged(interval);
+		this.visibleEdges = currentEdges.size();
 		return changedList;
 	}
 	
 	@Override
 	public List<DynInterval<T>> searchChangedGraphsAttr(DynInterval<T> interval)
 	{
-		List<DynInterval<T>> tempList = dynNetwork.searchGraphsAttr(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentGraphsAttr, tempList);
-		currentGraphsAttr = tempList;
-		return changedList;
+		return currentGraphsAttr.searchChanged(interval);
 	}
 
 	@Override
 	public List<DynInterval<T>> searchChangedNodesAttr(DynInterval<T> interval)
 	{
-		List<DynInterval<T>> tempList = dynNetwork.searchNodesAttr(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentNodesAttr, tempList);
-		currentNodesAttr = tempList;
-		return changedList;
+		return currentNodesAttr.searchChanged(interval);
 	}
 
 	@Override
 	public List<DynInterval<T>> searchChangedEdgesAttr(DynInterval<T> interval)
 	{
-		List<DynInterval<T>> tempList = dynNetwork.searchEdgesAttr(interval);
-		List<DynInterval<T>> changedList = nonOverlap(currentEdgesAttr, tempList);
-		currentEdgesAttr = tempList;
-		return changedList;
+		return currentEdgesAttr.searchChanged(interval);
 	}
 
 	@Override
@@ -216,23 +203,5 @@ public final class DynNetworkViewImpl<T> implements DynNetworkView<T>
 	{
 		return this.edgeDummyValue.get(edge);
 	}
-	
-	private List<DynInterval<T>> nonOverlap(List<DynInterval<T>> list1, List<DynInterval<T>> list2) 
-	{
-		List<DynInterval<T>> diff = new ArrayList<DynInterval<T>>();
-		for (DynInterval<T> i : list1)
-			if (!list2.contains(i))
-			{
-				diff.add(i);
-				i.setOn(false);
-			}
-		for (DynInterval<T> i : list2)
-			if (!list1.contains(i))
-			{
-				diff.add(i);
-				i.setOn(true);
-			}
-		return diff;
-	}
 
 }
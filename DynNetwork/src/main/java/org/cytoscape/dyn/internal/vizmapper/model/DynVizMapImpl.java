@@ -32,6 +32,7 @@ import org.cytoscape.dyn.internal.model.attribute.DynAttribute;
 import org.cytoscape.dyn.internal.model.tree.DynInterval;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalTree;
 import org.cytoscape.dyn.internal.model.tree.DynIntervalTreeImpl;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.model.CyNetworkView;
@@ -54,11 +55,11 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	private final CyNetworkView view;
 	private final DynNetwork<T> dynNetwork;
 	
-	private List<DynInterval<T>> currentGraphsAttr;
-	private List<DynInterval<T>> currentNodesAttr;
-	private List<DynInterval<T>> currentEdgesAttr;
-	private List<DynInterval<T>> currentTrasnparencyNodesAttr;
-	private List<DynInterval<T>> currentTrasnparencyEdgesAttr;
+	private final TimelineCursor<T> currentGraphsAttr;
+	private final TimelineCursor<T> currentNodesAttr;
+	private final TimelineCursor<T> currentEdgesAttr;
+	private final TimelineCursor<T> currentTrasnparencyNodesAttr;
+	private final TimelineCursor<T> currentTrasnparencyEdgesAttr;
 	
 	private final Map<KeyPairs,DynAttribute<T>> graphTable;
 	private final Map<KeyPairs,DynAttribute<T>> nodeTable;
@@ -86,17 +87,17 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 		this.view = networkView;
 		this.dynNetwork = dynNetwork;
 		
-		this.currentGraphsAttr = new ArrayList<DynInterval<T>>();
-		this.currentNodesAttr = new ArrayList<DynInterval<T>>();
-		this.currentEdgesAttr = new ArrayList<DynInterval<T>>();
-		this.currentTrasnparencyNodesAttr = new ArrayList<DynInterval<T>>();
-		this.currentTrasnparencyEdgesAttr = new ArrayList<DynInterval<T>>();
-
 		this.graphTreeAttr = new DynIntervalTreeImpl<T>();
 		this.nodeTreeAttr = new DynIntervalTreeImpl<T>();
 		this.edgeTreeAttr = new DynIntervalTreeImpl<T>();
 		this.nodeTrasnparencyTreeAttr = new DynIntervalTreeImpl<T>();
 		this.edgeTrasnparencyTreeAttr = new DynIntervalTreeImpl<T>();
+		
+		this.currentGraphsAttr = new TimelineCursor<T>(graphTreeAttr);
+		this.currentNodesAttr = new TimelineCursor<T>(nodeTreeAttr);
+		this.currentEdgesAttr = new TimelineCursor<T>(edgeTreeAttr);
+		this.currentTrasnparencyNodesAttr = new TimelineCursor<T>(nodeTrasnparencyTreeAttr);
+		this.currentTrasnparencyEdgesAttr = new TimelineCursor<T>(edgeTrasnparencyTreeAttr);
 
 		this.graphTable = new HashMap<KeyPairs,DynAttribute<T>>();
 		this.nodeTable = new HashMap<KeyPairs,DynAttribute<T>>();
@@ -134,29 +135,38 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	@Override
 	public void finalize() 
 	{
+		List<DynInterval<T>> graphList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : graphTable.values())
-			for (DynInterval<T> interval : attr.getIntervalList())
-				graphTreeAttr.insert(interval, attr.getRow());	
+			graphList.addAll(attr.getIntervalList());
+		graphTreeAttr.insertAll(graphList);
 
+		List<DynInterval<T>> nodeList = new ArrayList<DynInterval<T>>();
+		List<DynInterval<T>> nodeTransparencyList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : nodeTable.values())
 			for (DynInterval<T> interval : attr.getIntervalList())
 				if (attr.getColumn().equals("GRAPHICS.node.transparency"))
 				{
-					nodeTrasnparencyTreeAttr.insert(interval, attr.getRow());
+					nodeTransparencyList.add(interval);
 					this.transparentNodes.add(dynNetwork.getNode(interval));
 				}
 				else
-					nodeTreeAttr.insert(interval, attr.getRow());
+					nodeList.add(interval);
+		nodeTrasnparencyTreeAttr.insertAll(nodeTransparencyList);
+		nodeTreeAttr.insertAll(nodeList);
 
+		List<DynInterval<T>> edgeList = new ArrayList<DynInterval<T>>();
+		List<DynInterval<T>> edgeTransparencyList = new ArrayList<DynInterval<T>>();
 		for (DynAttribute<T> attr : edgeTable.values())
 			for (DynInterval<T> interval : attr.getIntervalList())
 				if (attr.getColumn().equals("GRAPHICS.edge.transparency"))
 				{
-					edgeTrasnparencyTreeAttr.insert(interval, attr.getRow());
+					edgeTransparencyList.add(interval);
 					this.transparentEdges.add(dynNetwork.getEdge(interval));
 				}
 				else
-					edgeTreeAttr.insert(interval, attr.getRow());
+					edgeList.add(interval);
+		edgeTrasnparencyTreeAttr.insertAll(edgeTransparencyList);
+		edgeTreeAttr.insertAll(edgeList);
 	}
 
 	@Override
@@ -215,10 +225,7 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	{
 		if (!graphTable.isEmpty())
 		{
-			List<DynInterval<T>> tempList = graphTreeAttr.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentGraphsAttr, tempList);
-			currentGraphsAttr = tempList;
-			return changedList;
+			return currentGraphsAttr.searchChanged(interval);
 		}
 		else
 			return this.emptyList;
@@ -229,10 +236,7 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	{
 		if (!nodeTable.isEmpty())
 		{
-			List<DynInterval<T>> tempList = nodeTreeAttr.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentNodesAttr, tempList);
-			currentNodesAttr = tempList;
-			return changedList;
+			return currentNodesAttr.searchChanged(interval);
 		}
 		else
 			return this.emptyList;
@@ -243,10 +247,7 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	{
 		if (!edgeTable.isEmpty())
 		{
-			List<DynInterval<T>> tempList = edgeTreeAttr.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentEdgesAttr, tempList);
-			currentEdgesAttr = tempList;
-			return changedList;
+			return currentEdgesAttr.searchChanged(interval);
 		}
 		else
 			return this.emptyList;
@@ -257,10 +258,7 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	{
 		if (!nodeTable.isEmpty())
 		{
-			List<DynInterval<T>> tempList = nodeTrasnparencyTreeAttr.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentTrasnparencyNodesAttr, tempList);
-			currentTrasnparencyNodesAttr = tempList;
-			return changedList;
+			return currentTrasnparencyNodesAttr.searchChanged(interval);
 		}
 		else
 			return this.emptyList;
@@ -271,33 +269,12 @@ public class DynVizMapImpl<T> extends AbstractDynAttributeCheck<T> implements Dy
 	{
 		if (!edgeTable.isEmpty())
 		{
-			List<DynInterval<T>> tempList = edgeTrasnparencyTreeAttr.search(interval);
-			List<DynInterval<T>> changedList = nonOverlap(currentTrasnparencyEdgesAttr, tempList);
-			currentTrasnparencyEdgesAttr = tempList;
-			return changedList;
+			return currentTrasnparencyEdgesAttr.searchChanged(interval);
 		}
 		else
 			return this.emptyList;
 	}
 	
-	private List<DynInterval<T>> nonOverlap(List<DynInterval<T>> list1, List<DynInterval<T>> list2) 
-	{
-		List<DynInterval<T>> diff = new ArrayList<DynInterval<T>>();
-		for (DynInterval<T> i : list1)
-			if (!list2.contains(i))
-			{
-				diff.add(i);
-				i.setOn(false);
-			}
-		for (DynInterval<T> i : list2)
-			if (!list1.contains(i))
-			{
-				diff.add(i);
-				i.setOn(true);
-			}
-		return diff;
-	}
-	
 	@Override
 	public void addTransparentNode(CyNode node) 
 	{
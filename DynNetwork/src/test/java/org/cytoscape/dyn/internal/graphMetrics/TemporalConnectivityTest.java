@@ -0,0 +1,266 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2013 Jimmy Mahesh Morzaria
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.cytoscape.dyn.internal.graphMetrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.cytoscape.dyn.internal.model.DynNetwork;
+import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshotImpl;
+import org.cytoscape.dyn.internal.model.tree.DynInterval;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalDouble;
+import org.cytoscape.dyn.internal.model.tree.DynIntervalTreeImpl;
+import org.cytoscape.dyn.internal.model.tree.TimelineCursor;
+import org.cytoscape.dyn.internal.view.model.DynNetworkView;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.junit.Test;
+
+/**
+ * Compares the component series of {@link TemporalConnectivity} on random
+ * dynamic networks with a breadth-first search on each window of a
+ * {@link DynNetworkSnapshotImpl}. Nodes and edges appear and disappear
+ * several times, edges have overlapping intervals and parallel edges, and
+ * some intervals are points.
+ *
+ * @author Jimmy
+ */
+public class TemporalConnectivityTest {
+
+	private final Map<DynInterval<Double>, CyNode> intervalNodes = new IdentityHashMap<DynInterval<Double>, CyNode>();
+	private final Map<DynInterval<Double>, CyEdge> intervalEdges = new IdentityHashMap<DynInterval<Double>, CyEdge>();
+	private final TreeSet<Double> times = new TreeSet<Double>();
+
+	@Test
+	public void testRandomNetworks() {
+		for (int seed = 0; seed < 200; seed++)
+			checkRandomNetwork(new Random(seed), seed);
+	}
+
+	private void checkRandomNetwork(Random random, int seed) {
+		intervalNodes.clear();
+		intervalEdges.clear();
+		times.clear();
+		DynIntervalTreeImpl<Double> nodeTree = new DynIntervalTreeImpl<Double>();
+		DynIntervalTreeImpl<Double> edgeTree = new DynIntervalTreeImpl<Double>();
+
+		int n = 1 + random.nextInt(15);
+		CyNode[] nodes = new CyNode[n];
+		// SUIDs not in insertion order, so that the component id is not the first node
+		List<Long> suids = new ArrayList<Long>();
+		for (int v = 0; v < n; v++)
+			suids.add(100L + 7 * v);
+		Collections.shuffle(suids, random);
+		for (int v = 0; v < n; v++) {
+			nodes[v] = createNode(suids.get(v));
+			int intervals = 1 + random.nextInt(3);
+			for (int i = 0; i < intervals; i++)
+				insert(nodeTree, randomInterval(random, 4), nodes[v].getSUID(), nodes[v], null);
+		}
+		int m = random.nextInt(3 * n);
+		for (int e = 0; e < m; e++) {
+			CyEdge edge = createEdge(1000 + e, nodes[random.nextInt(n)], nodes[random.nextInt(n)]);
+			int intervals = 1 + random.nextInt(3);
+			for (int i = 0; i < intervals; i++)
+				insert(edgeTree, randomInterval(random, 3), edge.getSUID(), null, edge);
+		}
+
+		List<Double> eventTimeList = new ArrayList<Double>(times);
+		DynNetwork<Double> network = createNetwork(nodeTree, edgeTree);
+		TemporalConnectivity<Double> connectivity = new TemporalConnectivity<Double>(network);
+		connectivity.run(eventTimeList);
+		NodeSeries components = connectivity.getComponentSeries();
+		NodeSeries sizes = connectivity.getSizeSeries();
+
+		DynNetworkSnapshotImpl<Double> snapshot = new DynNetworkSnapshotImpl<Double>(createView(network));
+		for (int k = 0; k + 1 < eventTimeList.size(); k++) {
+			double time = eventTimeList.get(k);
+			snapshot.setInterval(new DynIntervalDouble(time, eventTimeList.get(k + 1)), 0, 0, 0);
+			String window = "seed " + seed + " window " + k;
+
+			int visible = 0;
+			for (CyNode node : snapshot.getNodes()) {
+				List<CyNode> component = search(snapshot, node);
+				long id = Long.MAX_VALUE;
+				for (CyNode member : component)
+					id = Math.min(id, member.getSUID());
+				assertEquals(window, id, valueAt(components, node.getSUID(), time, window), 0);
+				assertEquals(window, component.size(), valueAt(sizes, node.getSUID(), time, window), 0);
+				visible++;
+			}
+			assertEquals(window, visible, countAt(components, time));
+			assertEquals(window, visible, countAt(sizes, time));
+		}
+	}
+
+	// the windows in which a node or edge is visible start at its interval bounds
+	private DynIntervalDouble randomInterval(Random random, int maxLength) {
+		double start = random.nextInt(12);
+		double end = random.nextInt(4) == 0 ? start : start + 1 + random.nextInt(maxLength);
+		times.add(start);
+		times.add(end);
+		return new DynIntervalDouble(start, end);
+	}
+
+	private void insert(DynIntervalTreeImpl<Double> tree, DynIntervalDouble interval, long id, CyNode node, CyEdge edge) {
+		tree.insert(interval, id);
+		if (node != null)
+			intervalNodes.put(interval, node);
+		else
+			intervalEdges.put(interval, edge);
+	}
+
+	private static List<CyNode> search(DynNetworkSnapshotImpl<Double> snapshot, CyNode source) {
+		List<CyNode> component = new ArrayList<CyNode>();
+		Map<CyNode, Boolean> visited = new HashMap<CyNode, Boolean>();
+		ArrayDeque<CyNode> queue = new ArrayDeque<CyNode>();
+		visited.put(source, true);
+		queue.add(source);
+		while (!queue.isEmpty()) {
+			CyNode node = queue.poll();
+			component.add(node);
+			for (CyEdge edge : snapshot.getEdges(node)) {
+				CyNode other = snapshot.getOpposite(node, edge);
+				if (snapshot.conatinsNode(other) && !visited.containsKey(other)) {
+					visited.put(other, true);
+					queue.add(other);
+				}
+			}
+		}
+		return component;
+	}
+
+	// the value of the single interval of the node that contains the time
+	private static double valueAt(NodeSeries series, long suid, double time, String window) {
+		long[] suids = series.getSuids();
+		double[] values = series.getValues();
+		double[] starts = series.getStarts();
+		double[] ends = series.getEnds();
+		double value = Double.NaN;
+		int hits = 0;
+		for (int i = 0; i < suids.length; i++)
+			if (suids[i] == suid && starts[i] <= time && time < ends[i]) {
+				value = values[i];
+				hits++;
+			}
+		assertEquals(window + " node " + suid, 1, hits);
+		return value;
+	}
+
+	private static int countAt(NodeSeries series, double time) {
+		double[] starts = series.getStarts();
+		double[] ends = series.getEnds();
+		int count = 0;
+		for (int i = 0; i < starts.length; i++)
+			if (starts[i] <= time && time < ends[i])
+				count++;
+		return count;
+	}
+
+	@SuppressWarnings("unchecked")
+	private DynNetwork<Double> createNetwork(final DynIntervalTreeImpl<Double> nodeTree, final DynIntervalTreeImpl<Double> edgeTree) {
+		return (DynNetwork<Double>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { DynNetwork.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if (name.equals("getNodeTimelineCursor"))
+							return new TimelineCursor<Double>(nodeTree, (Boolean) args[0]);
+						if (name.equals("getEdgeTimelineCursor"))
+							return new TimelineCursor<Double>(edgeTree, (Boolean) args[0]);
+						if (name.equals("searchNodes"))
+							return nodeTree.search((DynInterval<Double>) args[0]);
+						if (name.equals("searchEdges"))
+							return edgeTree.search((DynInterval<Double>) args[0]);
+						if (name.equals("getNode"))
+							return intervalNodes.get(args[0]);
+						if (name.equals("getEdge"))
+							return intervalEdges.get(args[0]);
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private DynNetworkView<Double> createView(final DynNetwork<Double> network) {
+		return (DynNetworkView<Double>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { DynNetworkView.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getNetwork"))
+							return network;
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	private CyNode createNode(final long suid) {
+		return (CyNode) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { CyNode.class },
+				new Identity(suid, null, null));
+	}
+
+	private CyEdge createEdge(final long suid, CyNode source, CyNode target) {
+		return (CyEdge) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { CyEdge.class },
+				new Identity(suid, source, target));
+	}
+
+	/*
+	 * Answers the SUID and the endpoints, with identity equality.
+	 */
+	private static final class Identity implements InvocationHandler {
+		private final long suid;
+		private final CyNode source;
+		private final CyNode target;
+
+		Identity(long suid, CyNode source, CyNode target) {
+			this.suid = suid;
+			this.source = source;
+			this.target = target;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if (name.equals("getSUID"))
+				return suid;
+			if (name.equals("getSource"))
+				return source;
+			if (name.equals("getTarget"))
+				return target;
+			if (name.equals("isDirected"))
+				return true;
+			if (name.equals("equals"))
+				return proxy == args[0];
+			if (name.equals("hashCode"))
+				return (int) suid;
+			if (name.equals("toString"))
+				return String.valueOf(suid);
+			throw new UnsupportedOperationException(name);
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * DynNetwork plugin for Cytoscape 3.0 (http://www.cytoscape.org/).
+ * Copyright (C) 2012 Sabina Sara Pfister
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.cytoscape.dyn.internal.layout.standard.distance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.cytoscape.dyn.internal.model.snapshot.DynNetworkSnapshot;
+import org.cytoscape.dyn.internal.model.snapshot.SnapshotCSR;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.junit.Test;
+
+/**
+ * Compares {@link IncrementalShortestPaths} with a fresh {@link SnapshotCSRDistance}
+ * after each of a sequence of random node and edge insertions and deletions, and
+ * weight changes.
+ *
+ * @author Sabina Sara Pfister
+ */
+public class IncrementalShortestPathsTest
+{
+	private final List<CyNode> nodes = new ArrayList<CyNode>();
+	private final List<CyEdge> edges = new ArrayList<CyEdge>();
+	private final Map<CyEdge,Double> weights = new HashMap<CyEdge,Double>();
+	private long nextSUID;
+
+	@Test
+	public void testUnweighted()
+	{
+		for (int seed=0;seed<100;seed++)
+		{
+			checkRandomUpdates(new Random(seed), false, false, Integer.MAX_VALUE);
+			checkRandomUpdates(new Random(seed), true, false, Integer.MAX_VALUE);
+		}
+	}
+
+	@Test
+	public void testWeighted()
+	{
+		for (int seed=0;seed<100;seed++)
+		{
+			checkRandomUpdates(new Random(seed), false, true, Integer.MAX_VALUE);
+			checkRandomUpdates(new Random(seed), true, true, Integer.MAX_VALUE);
+		}
+	}
+
+	@Test
+	public void testWeightedMaxTargets()
+	{
+		for (int seed=0;seed<100;seed++)
+		{
+			checkRandomUpdates(new Random(seed), false, true, 2+seed%6);
+			checkRandomUpdates(new Random(seed), true, true, 2+seed%6);
+		}
+	}
+
+	@Test
+	public void testUnweightedMaxTargets()
+	{
+		for (int seed=0;seed<100;seed++)
+		{
+			checkRandomUpdates(new Random(seed), false, false, 2+seed%6);
+			checkRandomUpdates(new Random(seed), true, false, 2+seed%6);
+		}
+	}
+
+	private void checkRandomUpdates(Random random, boolean directed, boolean weighted, int maxTargets)
+	{
+		nodes.clear();
+		edges.clear();
+		weights.clear();
+		DynNetworkSnapshot<Double> snapshot = createSnapshot();
+		IncrementalShortestPaths<Double> paths = new IncrementalShortestPaths<Double>(maxTargets);
+
+		// the last update removes all nodes, so that the next ones reuse their slots
+		int steps = 30;
+		for (int step=0;step<steps;step++)
+		{
+			if (step==steps-1)
+			{
+				nodes.clear();
+				edges.clear();
+			}
+			else
+				change(random, step==0 || step==steps-2 ? 30 : 1+random.nextInt(4));
+
+			SnapshotCSR<Double> csr = new SnapshotCSR<Double>(snapshot, directed, weighted ? weights : null);
+			paths.update(csr);
+			SnapshotCSRDistance<Double> distance = new SnapshotCSRDistance<Double>(csr, maxTargets);
+			String message = "directed " + directed + " weighted " + weighted + " maxTargets " + maxTargets + " step " + step;
+
+			double diameter = 0;
+			for (int i=0;i<csr.getNodeCount();i++)
+			{
+				int s = paths.getSlot(csr.getNode(i));
+				assertTrue(message, s>=0);
+				double[] row = distance.getDistanceRow(i);
+				for (int j=0;j<csr.getNodeCount();j++)
+				{
+					int t = paths.getSlot(csr.getNode(j));
+					assertEquals(message + " from " + i + " to " + j, (float) row[j], paths.getSlotDistance(s, t), 0);
+					if (!Double.isInfinite(row[j]))
+						diameter = Math.max(diameter, row[j]);
+				}
+			}
+			assertEquals(message, diameter, paths.getDiameter(), 1e-6);
+		}
+	}
+
+	// Apply random insertions and deletions of nodes and edges, and weight changes.
+	private void change(Random random, int changes)
+	{
+		for (int c=0;c<changes;c++)
+		{
+			int k = random.nextInt(7);
+			if (k==0 || nodes.size()<2)
+				nodes.add(createNode());
+			else if (k==1)
+			{
+				CyNode node = nodes.remove(random.nextInt(nodes.size()));
+				for (Iterator<CyEdge> it=edges.iterator();it.hasNext();)
+				{
+					CyEdge edge = it.next();
+					if (edge.getSource()==node || edge.getTarget()==node)
+						it.remove();
+				}
+			}
+			else if (k<=4)
+			{
+				// parallel edges and self loops are allowed
+				CyEdge edge = createEdge(nodes.get(random.nextInt(nodes.size())), nodes.get(random.nextInt(nodes.size())));
+				edges.add(random.nextInt(edges.size()+1), edge);
+				weights.put(edge, 1.0+random.nextInt(9));
+			}
+			else if (k==5 && !edges.isEmpty())
+				edges.remove(random.nextInt(edges.size()));
+			else if (!edges.isEmpty())
+				weights.put(edges.get(random.nextInt(edges.size())), 1.0+random.nextInt(9));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private DynNetworkSnapshot<Double> createSnapshot()
+	{
+		return (DynNetworkSnapshot<Double>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {DynNetworkSnapshot.class},
+				new InvocationHandler()
+				{
+					public Object invoke(Object proxy, Method method, Object[] args)
+					{
+						String name = method.getName();
+						if (name.equals("getNodes"))
+							return nodes;
+						if (name.equals("getEdges"))
+							return edges;
+						if (name.equals("getInEdges") || name.equals("getOutEdges"))
+						{
+							List<CyEdge> list = new ArrayList<CyEdge>();
+							for (CyEdge edge : edges)
+								if ((name.equals("getInEdges") ? edge.getTarget() : edge.getSource())==args[0])
+									list.add(edge);
+							return list;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+
+	private CyNode createNode()
+	{
+		return (CyNode) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {CyNode.class},
+				new Identity(nextSUID++, null, null));
+	}
+
+	private CyEdge createEdge(CyNode source, CyNode target)
+	{
+		return (CyEdge) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {CyEdge.class},
+				new Identity(nextSUID++, source, target));
+	}
+
+	// Answers the SUID and the endpoints, with identity equality.
+	private static final class Identity implements InvocationHandler
+	{
+		private final long suid;
+		private final CyNode source;
+		private final CyNode target;
+
+		Identity(long suid, CyNode source, CyNode target)
+		{
+			this.suid = suid;
+			this.source = source;
+			this.target = target;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			String name = method.getName();
+			if (name.equals("getSUID"))
+				return suid;
+			if (name.equals("getSource"))
+				return source;
+			if (name.equals("getTarget"))
+				return target;
+			if (name.equals("isDirected"))
+				return true;
+			if (name.equals("equals"))
+				return proxy==args[0];
+			if (name.equals("hashCode"))
+				return (int) suid;
+			if (name.equals("toString"))
+				return String.valueOf(suid);
+			throw new UnsupportedOperationException(name);
+		}
+	}
+}